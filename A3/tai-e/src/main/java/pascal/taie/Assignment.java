@@ -22,23 +22,92 @@
 
 package pascal.taie;
 
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.config.ConfigException;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Main class for assignments.
  */
 public class Assignment {
 
+    private static final String PLAN_FILE = "plan.yml";
+
+    /**
+     * Command-line flag that specifies the parallelism of method analyses.
+     */
+    private static final String PARALLELISM_FLAG = "--parallelism";
+
     public static void main(String[] args) {
         if (args.length > 0) {
             List<String> argList = new ArrayList<>();
-            Collections.addAll(argList, "-pp", "-p", "plan.yml");
+            Collections.addAll(argList, "-pp", "-p", PLAN_FILE);
             Collections.addAll(argList, args);
-            Main.main(argList.toArray(new String[0]));
+            run(argList.toArray(new String[0]));
+        } else {
+            System.out.println("Usage: -cp <CLASS_PATH> -m <CLASS_NAME> [--parallelism <N>]");
+        }
+    }
+
+    /**
+     * Runs Tai-e with given arguments. Besides the arguments of {@link Main},
+     * "--parallelism N" can be given to run the method analyses over
+     * N workers.
+     * <p>
+     * Method analyses are applied to the methods in parallel streams,
+     * which run in the common fork-join pool by default. If N is positive,
+     * the whole run is performed inside a fork-join pool of size N instead,
+     * so that the parallel streams forked from it run in that pool.
+     */
+    public static void run(String... args) {
+        List<String> mainArgs = new ArrayList<>();
+        int parallelism = 0;
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].equals(PARALLELISM_FLAG)) {
+                if (++i == args.length) {
+                    throw new ConfigException("Missing value of " + PARALLELISM_FLAG);
+                }
+                parallelism = parseParallelism(args[i]);
+            } else {
+                mainArgs.add(args[i]);
+            }
+        }
+        String[] argArray = mainArgs.toArray(new String[0]);
+        if (parallelism > 0) {
+            runInPool(() -> Main.main(argArray), parallelism);
         } else {
-            System.out.println("Usage: -cp <CLASS_PATH> -m <CLASS_NAME>");
+            Main.main(argArray);
+        }
+        Solver.logNodeVisits();
+    }
+
+    private static int parseParallelism(String value) {
+        try {
+            int parallelism = Integer.parseInt(value);
+            if (parallelism >= 0) {
+                return parallelism;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new ConfigException("Invalid parallelism: " + value);
+    }
+
+    /**
+     * Runs the given task in a fork-join pool with given parallelism.
+     * Parallel streams started inside the task, e.g., the ones which
+     * fan method analyses out over the methods, run in the same pool
+     * instead of the common pool.
+     */
+    private static void runInPool(Runnable task, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(task).join();
+        } finally {
+            pool.shutdown();
         }
     }
 }
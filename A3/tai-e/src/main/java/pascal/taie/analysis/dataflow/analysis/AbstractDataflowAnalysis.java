@@ -39,7 +39,7 @@ public abstract class AbstractDataflowAnalysis<Node, Fact>
 
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        solver = Solver.makeSolver(this, getOptions().getString("solver"));
     }
 
     @Override
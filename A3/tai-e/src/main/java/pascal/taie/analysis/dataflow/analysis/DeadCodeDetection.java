@@ -23,6 +23,7 @@
 package pascal.taie.analysis.dataflow.analysis;
 
 import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.BranchEvaluator;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
@@ -39,7 +40,12 @@ import pascal.taie.ir.stmt.If;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.SwitchStmt;
 
-import java.util.*;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
 
 public class DeadCodeDetection extends MethodAnalysis {
 
@@ -62,86 +68,40 @@ public class DeadCodeDetection extends MethodAnalysis {
         // keep statements (dead code) sorted in the resulting set
         Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
         // TODO - finish me
-        List<Stmt> LabeledList = new ArrayList<Stmt>();
-        Queue<Stmt> WorkList = new LinkedList<Stmt>();
-        WorkList.add(cfg.getEntry());
-        LabeledList.add(cfg.getEntry());
-        while (!WorkList.isEmpty()) {
-            Stmt stmt = WorkList.poll();
+        // 可达语句用 Stmt.getIndex() 标记 (entry/exit 的 index 紧跟在最后一条语句之后)
+        BitSet reached = new BitSet(ir.getStmts().size() + 2);
+        Queue<Stmt> workList = new ArrayDeque<>();
+        BranchEvaluator branchEvaluator = new BranchEvaluator();
+        reach(cfg.getEntry(), reached, workList);
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
 
             // 先考虑死代码  分支不可达
-            if (stmt instanceof If) {
-                ConditionExp exp = ((If) stmt).getCondition();
-                Value v1 = constants.getInFact(stmt).get(exp.getOperand1());
-                Value v2 = constants.getInFact(stmt).get(exp.getOperand2());
-                if (v1.isNAC() || v2.isNAC() || v1.isUndef() || v2.isUndef()) {
+            if (stmt instanceof If ifStmt) {
+                Value cond = BranchEvaluator.evaluate(
+                        ifStmt.getCondition(), constants.getInFact(stmt));
+                if (!cond.isConstant()) {
                     // 计算结果不是常量 两条边都要遍历
-                    for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
-                        if (!LabeledList.contains(edge.getTarget())) { // 没有遍历过的才去遍历 不然死循环
-                            LabeledList.add(edge.getTarget());
-                            WorkList.add((edge.getTarget()));
-                        }
-                    }
+                    reachSuccsOf(stmt, cfg, reached, workList);
                     continue;
                 }
-
-                int res = switch (exp.getOperator().toString()) {
-                    case "==" -> v1.getConstant() == v2.getConstant() ? 1 : 0;
-                    case "!=" -> v1.getConstant() != v2.getConstant() ? 1 : 0;
-                    case "<" -> v1.getConstant() < v2.getConstant() ? 1 : 0;
-                    case ">" -> v1.getConstant() > v2.getConstant() ? 1 : 0;
-                    case "<=" -> v1.getConstant() <= v2.getConstant() ? 1 : 0;
-                    case ">=" -> v1.getConstant() >= v2.getConstant() ? 1 : 0;
-                    default -> 0;
-                };
                 for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
-                    if ((res == 1 && edge.getKind() == Edge.Kind.IF_TRUE) // 只进入true
-                            || (res == 0 && edge.getKind() == Edge.Kind.IF_FALSE)) { // 只进入false
-                        if (!LabeledList.contains(edge.getTarget())) { // 没有遍历过的才去遍历 不然死循环
-                            LabeledList.add(edge.getTarget());
-                            WorkList.add((edge.getTarget()));
-                        }
+                    // 只进入 true 或 false 分支
+                    if (branchEvaluator.isFeasible(edge, cond.getConstant())) {
+                        reach(edge.getTarget(), reached, workList);
                     }
                 }
-            } else if (stmt instanceof SwitchStmt) {
-                Value res = constants.getInFact(stmt).get(((SwitchStmt) stmt).getVar());
-                if (res.isNAC() || res.isUndef()) { // 所有case + default都应该遍历
-                    for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
-                        if (!LabeledList.contains(edge.getTarget())) { // 没有遍历过的才去遍历 不然死循环
-                            LabeledList.add(edge.getTarget());
-                            WorkList.add((edge.getTarget()));
-                        }
-                    }
+            } else if (stmt instanceof SwitchStmt switchStmt) {
+                Value res = constants.getInFact(stmt).get(switchStmt.getVar());
+                if (!res.isConstant()) { // 所有case + default都应该遍历
+                    reachSuccsOf(stmt, cfg, reached, workList);
                     continue;
                 }
-                boolean flag = true;
-                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
-                    if (edge.getKind() == Edge.Kind.SWITCH_CASE
-                            && edge.getCaseValue() == res.getConstant()) { // 找到匹配的case 进入
-                        flag = false; // 不进入 default
-                        if (!LabeledList.contains(edge.getTarget())) { // 没有遍历过的才去遍历 不然死循环
-                            LabeledList.add(edge.getTarget());
-                            WorkList.add((edge.getTarget()));
-                        }
-                    }
-                }
-                if (flag) { // 需要进入 default
-                    for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
-                        if (edge.getKind() == Edge.Kind.SWITCH_DEFAULT) { // 找到default 进入
-                            if (!LabeledList.contains(edge.getTarget())) { // 没有遍历过的才去遍历 不然死循环
-                                LabeledList.add(edge.getTarget());
-                                WorkList.add((edge.getTarget()));
-                            }
-                        }
-                    }
-                }
+                // 进入匹配的 case, 没有匹配的 case 则进入 default
+                reach(branchEvaluator.getSwitchTarget(switchStmt, res.getConstant()),
+                        reached, workList);
             } else { // 不是跳转语句 直接进入唯一的下一条语句
-                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
-                    if (!LabeledList.contains(edge.getTarget())) {
-                        LabeledList.add(edge.getTarget());
-                        WorkList.add((edge.getTarget()));
-                    }
-                }
+                reachSuccsOf(stmt, cfg, reached, workList);
             }
 
             // 再考虑无效赋值
@@ -155,8 +115,8 @@ public class DeadCodeDetection extends MethodAnalysis {
             }
         }
 
-        for(Stmt stmt:cfg.getNodes()){ // 没有标记的都是死代码
-            if(stmt.getLineNumber() >=0 && !LabeledList.contains(stmt)){ // 莫名其妙出现Line -1
+        for (Stmt stmt : ir) { // 没有标记的都是死代码 (entry/exit 不在 ir 中)
+            if (stmt.getLineNumber() >= 0 && !reached.get(stmt.getIndex())) { // 莫名其妙出现Line -1
                 deadCode.add(stmt);
             }
         }
@@ -176,6 +136,25 @@ public class DeadCodeDetection extends MethodAnalysis {
         return deadCode;
     }
 
+    /**
+     * Marks given statement as reached, and adds it to the work list
+     * if it has not been reached before.
+     */
+    private static void reach(Stmt stmt, BitSet reached, Queue<Stmt> workList) {
+        int index = stmt.getIndex();
+        if (!reached.get(index)) { // 没有遍历过的才去遍历 不然死循环
+            reached.set(index);
+            workList.add(stmt);
+        }
+    }
+
+    private static void reachSuccsOf(Stmt stmt, CFG<Stmt> cfg,
+                                     BitSet reached, Queue<Stmt> workList) {
+        for (Stmt succ : cfg.getSuccsOf(stmt)) {
+            reach(succ, reached, workList);
+        }
+    }
+
     /**
      * @return true if given RValue has no side effect, otherwise false.
      */
@@ -25,13 +25,16 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.Binary;
 import pascal.taie.ir.stmt.New;
 import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.Indexer;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -46,8 +49,15 @@ public class LiveVariableAnalysis extends
 
     public static final String ID = "livevar";
 
+    /**
+     * Whether represents sets of live variables as bit vectors
+     * indexed by {@link Var#getIndex()}.
+     */
+    private final boolean bitVector;
+
     public LiveVariableAnalysis(AnalysisConfig config) {
         super(config);
+        bitVector = getOptions().getBooleanOrDefault("bit-vector", false);
     }
 
     @Override
@@ -59,7 +69,7 @@ public class LiveVariableAnalysis extends
     public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
         // TODO - finish me
 
-        return new SetFact<Var>();
+        return newFact(cfg.getIR());
         // return new SetFact<>(cfg.getExit().getUses().stream().map(x->(Var)x).toList());
     }
 
@@ -69,6 +79,17 @@ public class LiveVariableAnalysis extends
         return new SetFact<Var>();
     }
 
+    @Override
+    public SetFact<Var> newInitialFact(CFG<Stmt> cfg) {
+        return newFact(cfg.getIR());
+    }
+
+    private SetFact<Var> newFact(IR ir) {
+        return bitVector ?
+                new BitSetFact<>(new VarIndexer(ir), ir.getVars().size()) :
+                new SetFact<>();
+    }
+
     @Override
     public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
         // TODO - finish me
@@ -89,7 +110,11 @@ public class LiveVariableAnalysis extends
         // in = out.copy();
 
         // 减去def
-        in.removeIf(var -> stmt.getDef().isPresent() && var == stmt.getDef().get()); //
+        stmt.getDef().ifPresent(def -> {
+            if (def instanceof Var var) {
+                in.remove(var);
+            }
+        });
 
         // 合并 use
         for (RValue rValue : stmt.getUses()) { // 遍历
@@ -127,4 +152,20 @@ public class LiveVariableAnalysis extends
             process(value, in);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Indexes the variables of an IR by {@link Var#getIndex()}.
+     */
+    private record VarIndexer(IR ir) implements Indexer<Var> {
+
+        @Override
+        public int getIndex(Var var) {
+            return var.getIndex();
+        }
+
+        @Override
+        public Var getObject(int index) {
+            return ir.getVar(index);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Pair;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates branch statements ({@link If} and {@link SwitchStmt})
+ * on constant values, to decide which of their out edges can be taken.
+ * <p>
+ * The case values and targets of each {@link SwitchStmt} are collected
+ * into a table when the statement is evaluated for the first time,
+ * so that subsequent evaluations are a binary search that allocates nothing.
+ * The tables are cached in the evaluator, thus an evaluator should be
+ * used by one analysis of one method at a time.
+ */
+public class BranchEvaluator {
+
+    private final Map<SwitchStmt, SwitchTable> switchTables = Maps.newMap();
+
+    /**
+     * @return the result of comparing two int constants by given operator.
+     */
+    public static boolean evaluate(ConditionExp.Op op, int i1, int i2) {
+        return switch (op) {
+            case EQ -> i1 == i2;
+            case NE -> i1 != i2;
+            case LT -> i1 < i2;
+            case GT -> i1 > i2;
+            case LE -> i1 <= i2;
+            case GE -> i1 >= i2;
+        };
+    }
+
+    /**
+     * Evaluates the condition of an {@link If} on given fact.
+     *
+     * @return NAC if any operand is NAC, UNDEF if any operand is UNDEF
+     * (and none is NAC), otherwise the constant 1 (true) or 0 (false).
+     */
+    public static Value evaluate(ConditionExp cond, CPFact fact) {
+        return evaluate(cond.getOperator(),
+                fact.get(cond.getOperand1()), fact.get(cond.getOperand2()));
+    }
+
+    /**
+     * Evaluates a condition on the values of its operands.
+     *
+     * @see #evaluate(ConditionExp, CPFact)
+     */
+    public static Value evaluate(ConditionExp.Op op, Value v1, Value v2) {
+        if (v1.isNAC() || v2.isNAC()) {
+            return Value.getNAC();
+        } else if (v1.isUndef() || v2.isUndef()) {
+            return Value.getUndef();
+        } else {
+            return Value.makeConstant(evaluate(op,
+                    v1.getConstant(), v2.getConstant()) ? 1 : 0);
+        }
+    }
+
+    /**
+     * @param edge  an out edge of an {@link If} or a {@link SwitchStmt}.
+     * @param value the constant value of the condition of the If (1 for true,
+     *              0 for false), or of the variable of the SwitchStmt.
+     * @return whether the control flow may take given edge.
+     */
+    public boolean isFeasible(Edge<Stmt> edge, int value) {
+        Stmt source = edge.getSource();
+        if (source instanceof If) {
+            return switch (edge.getKind()) {
+                case IF_TRUE -> value != 0;
+                case IF_FALSE -> value == 0;
+                default -> true;
+            };
+        } else if (source instanceof SwitchStmt switchStmt) {
+            return edge.getTarget() == getSwitchTarget(switchStmt, value);
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * @return the statement given switch jumps to when its variable holds
+     * given value, i.e., the target of the matching case if any, otherwise
+     * the default target.
+     */
+    public Stmt getSwitchTarget(SwitchStmt switchStmt, int value) {
+        return switchTables.computeIfAbsent(switchStmt, SwitchTable::new)
+                .getTarget(value);
+    }
+
+    /**
+     * Case values of a switch in ascending order, and their targets.
+     */
+    private static class SwitchTable {
+
+        private final int[] caseValues;
+
+        private final Stmt[] targets;
+
+        private final Stmt defaultTarget;
+
+        private SwitchTable(SwitchStmt switchStmt) {
+            List<Pair<Integer, Stmt>> caseTargets = switchStmt.getCaseTargets()
+                    .stream()
+                    .sorted(Comparator.comparing(Pair::first))
+                    .toList();
+            caseValues = new int[caseTargets.size()];
+            targets = new Stmt[caseTargets.size()];
+            for (int i = 0; i < caseValues.length; ++i) {
+                caseValues[i] = caseTargets.get(i).first();
+                targets[i] = caseTargets.get(i).second();
+            }
+            defaultTarget = switchStmt.getDefaultTarget();
+        }
+
+        private Stmt getTarget(int value) {
+            int i = Arrays.binarySearch(caseValues, value);
+            return i >= 0 ? targets[i] : defaultTarget;
+        }
+    }
+}
@@ -24,6 +24,7 @@ package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.util.collection.PersistentMap;
 
 import java.util.Collections;
 import java.util.Map;
@@ -41,7 +42,15 @@ import java.util.Map;
 public class CPFact extends MapFact<Var, Value> {
 
     public CPFact() {
-        this(Collections.emptyMap());
+        this(false);
+    }
+
+    /**
+     * @param persistent whether this fact is backed by a {@link PersistentMap},
+     *                   which makes {@link #copy()} constant-time.
+     */
+    public CPFact(boolean persistent) {
+        this(persistent ? new PersistentMap<>() : Collections.emptyMap());
     }
 
     private CPFact(Map<Var, Value> map) {
@@ -24,8 +24,10 @@ package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import heros.solver.Pair;
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
@@ -42,8 +44,31 @@ public class ConstantPropagation extends
 
     public static final String ID = "constprop";
 
+    /**
+     * Whether to solve constant propagation sparsely over def-use chains,
+     * see {@link SparseConstantPropagation}.
+     */
+    private final boolean sparse;
+
+    /**
+     * Whether the sparse solver tracks executable edges, so that the facts
+     * only count the values flowing along edges that may be taken.
+     */
+    private final boolean conditional;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        sparse = getOptions().getBooleanOrDefault("sparse", false);
+        conditional = getOptions().getBooleanOrDefault("conditional", false);
+    }
+
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        if (sparse) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            return new SparseConstantPropagation(cfg, conditional).solve();
+        }
+        return super.analyze(ir);
     }
 
     @Override
@@ -247,16 +272,9 @@ public class ConstantPropagation extends
                     return Value.getNAC();
             }
 
-        } else if (exp instanceof ConditionExp) {                   // 比较运算
-            return switch (exp.getOperator().toString()) {
-                case "==" -> Value.makeConstant(v1.getConstant() == v2.getConstant() ? 1 : 0);
-                case "!=" -> Value.makeConstant(v1.getConstant() != v2.getConstant() ? 1 : 0);
-                case "<" -> Value.makeConstant(v1.getConstant() < v2.getConstant() ? 1 : 0);
-                case ">" -> Value.makeConstant(v1.getConstant() > v2.getConstant() ? 1 : 0);
-                case "<=" -> Value.makeConstant(v1.getConstant() <= v2.getConstant() ? 1 : 0);
-                case ">=" -> Value.makeConstant(v1.getConstant() >= v2.getConstant() ? 1 : 0);
-                default -> Value.getNAC();
-            };
+        } else if (exp instanceof ConditionExp condExp) {            // 比较运算
+            return Value.makeConstant(BranchEvaluator.evaluate(condExp.getOperator(),
+                    v1.getConstant(), v2.getConstant()) ? 1 : 0);
 
         } else if (exp instanceof ShiftExp) {                       // 位运算
             return switch (exp.getOperator().toString()) {
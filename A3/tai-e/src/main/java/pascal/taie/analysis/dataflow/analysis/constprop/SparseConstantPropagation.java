@@ -0,0 +1,881 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.PersistentMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Sparse constant propagation on the CFG of a method.
+ * <p>
+ * Instead of propagating a whole {@link CPFact} through every node,
+ * this solver converts the int-holding variables of the method into
+ * (minimal) SSA form, keeps one {@link Value} per SSA definition, and
+ * re-evaluates a definition only when the value of a definition it uses
+ * changes. The SSA form is built on the CFG itself: the dominator tree
+ * is computed by the iterative algorithm of Cooper, Harvey and Kennedy,
+ * phi-definitions are placed on the iterated dominance frontiers, and
+ * the uses are renamed along the dominator tree. So the propagation is
+ * linear in the size of the def-use graph (plus the CFG, if executable
+ * edges are tracked), instead of the number of nodes times the number
+ * of variables.
+ * <p>
+ * A virtual root precedes the entry and the nodes that are unreachable
+ * from the entry, and it defines all variables as UNDEF. By default,
+ * all edges are executable, and the result is the same fixed point as
+ * the dense {@link ConstantPropagation} reaches on the whole CFG.
+ * If {@code conditional} is set, the solver tracks executable edges
+ * as the sparse conditional constant propagation of Wegman and Zadeck:
+ * only the edge from the root to the entry is executable at first,
+ * the out edges of an {@link If} or a {@link SwitchStmt} become
+ * executable when {@link BranchEvaluator} finds them feasible on the
+ * value of the condition, the definitions at a node are evaluated only
+ * after the node is reached by an executable edge, and phi-definitions
+ * meet only the operands that flow along executable edges. The facts
+ * of the nodes that are never reached are empty.
+ * <p>
+ * The {@link CPFact} of each node is built lazily when it is queried,
+ * from the fact of its immediate dominator and the definitions at
+ * the node. The facts are backed by {@link PersistentMap}, so that
+ * a fact shares the mappings of the fact it is built from, and building
+ * it costs O(d log v) for d definitions at the node and v variables.
+ */
+class SparseConstantPropagation {
+
+    private final CFG<Stmt> cfg;
+
+    /**
+     * Whether to track executable edges, see the class documentation.
+     */
+    private final boolean conditional;
+
+    /**
+     * CFG nodes, indexed by {@link Stmt#getIndex()}.
+     */
+    private final Stmt[] nodes;
+
+    /**
+     * Index of the virtual root, i.e., the number of CFG nodes.
+     */
+    private final int root;
+
+    /**
+     * Successors and predecessors of each node, including the virtual root.
+     */
+    private int[][] succs;
+
+    private int[][] preds;
+
+    /**
+     * For each edge x -> succs[x][k], succPositions[x][k] is the position
+     * of x in the predecessors of the target, i.e., the position of
+     * the operand of the phi-definitions that the edge carries.
+     */
+    private int[][] succPositions;
+
+    /**
+     * Reverse postorder (from the virtual root) of the nodes, and the
+     * position of each node in it.
+     */
+    private int[] order;
+
+    private int[] orderNumbers;
+
+    private int[] idom;
+
+    /**
+     * Phi-definitions at each node, linked through {@link Def#next}.
+     */
+    private final Def[] phis;
+
+    /**
+     * Definitions at each node, linked through {@link Def#next}.
+     * Only the entry defines more than one variable (the parameters).
+     */
+    private final Def[] defs;
+
+    private final List<Def> allDefs = new ArrayList<>();
+
+    /**
+     * Conditions of the {@link If}s and variables of the {@link SwitchStmt}s
+     * at each node, whose values decide the executable out edges.
+     * Only used if {@link #conditional} is set.
+     */
+    private final Def[] branches;
+
+    private final BranchEvaluator branchEvaluator = new BranchEvaluator();
+
+    /**
+     * Whether each node has been reached by an executable edge,
+     * and whether each edge is executable, indexed by the target
+     * and the position of the source in the predecessors of the target.
+     * Only used if {@link #conditional} is set.
+     */
+    private boolean[] executable;
+
+    private boolean[][] executableEdges;
+
+    private final Queue<Def> workList = new ArrayDeque<>();
+
+    /**
+     * Stack of nodes that have just become executable.
+     */
+    private int[] newNodes;
+
+    private int nNewNodes;
+
+    SparseConstantPropagation(CFG<Stmt> cfg, boolean conditional) {
+        this.cfg = cfg;
+        this.conditional = conditional;
+        int nNodes = 0;
+        for (Stmt node : cfg) {
+            nNodes = Math.max(nNodes, node.getIndex() + 1);
+        }
+        nodes = new Stmt[nNodes];
+        for (Stmt node : cfg) {
+            nodes[node.getIndex()] = node;
+        }
+        root = nNodes;
+        phis = new Def[nNodes + 1];
+        defs = new Def[nNodes + 1];
+        branches = new Def[nNodes + 1];
+        int entry = cfg.getEntry().getIndex();
+        for (Var param : cfg.getIR().getParams()) {
+            if (ConstantPropagation.canHoldInt(param)) {
+                addDef(entry, new Def(param, null, entry));
+            }
+        }
+        for (Stmt stmt : cfg) {
+            int node = stmt.getIndex();
+            if (stmt instanceof DefinitionStmt<?, ?> defStmt &&
+                    defStmt.getLValue() instanceof Var var &&
+                    ConstantPropagation.canHoldInt(var)) {
+                addDef(node, new Def(var, defStmt.getRValue(), node));
+            } else if (conditional && stmt instanceof If ifStmt) {
+                branches[node] = new Def(null, ifStmt.getCondition(), node);
+            } else if (conditional && stmt instanceof SwitchStmt switchStmt) {
+                branches[node] = new Def(null, switchStmt.getVar(), node);
+            }
+        }
+    }
+
+    private void addDef(int node, Def def) {
+        def.next = defs[node];
+        defs[node] = def;
+        allDefs.add(def);
+    }
+
+    DataflowResult<Stmt, CPFact> solve() {
+        buildGraph();
+        computeDominators();
+        placePhis();
+        rename();
+        propagate();
+        return new Result(root);
+    }
+
+    /**
+     * Builds the successors and predecessors of the nodes,
+     * and connects the virtual root to the entry and the nodes
+     * that are unreachable from the entry.
+     */
+    private void buildGraph() {
+        succs = new int[root + 1][];
+        for (Stmt node : nodes) {
+            if (node != null) {
+                succs[node.getIndex()] = cfg.getSuccsOf(node)
+                        .stream()
+                        .mapToInt(Stmt::getIndex)
+                        .toArray();
+            }
+        }
+        boolean[] reachable = new boolean[root];
+        int[] stack = new int[root];
+        int top = 0;
+        int entry = cfg.getEntry().getIndex();
+        reachable[entry] = true;
+        stack[top++] = entry;
+        while (top > 0) {
+            for (int succ : succs[stack[--top]]) {
+                if (!reachable[succ]) {
+                    reachable[succ] = true;
+                    stack[top++] = succ;
+                }
+            }
+        }
+        int[] rootSuccs = new int[root];
+        int nRootSuccs = 0;
+        rootSuccs[nRootSuccs++] = entry;
+        for (int i = 0; i < root; ++i) {
+            if (nodes[i] != null && !reachable[i]) {
+                rootSuccs[nRootSuccs++] = i;
+            }
+        }
+        succs[root] = Arrays.copyOf(rootSuccs, nRootSuccs);
+        // derive the predecessors from the successors, so that the
+        // position of each edge among the predecessors is known
+        int[] nPreds = new int[root + 1];
+        for (int[] targets : succs) {
+            if (targets != null) {
+                for (int target : targets) {
+                    ++nPreds[target];
+                }
+            }
+        }
+        preds = new int[root + 1][];
+        for (int i = 0; i <= root; ++i) {
+            preds[i] = new int[nPreds[i]];
+            nPreds[i] = 0;
+        }
+        succPositions = new int[root + 1][];
+        for (int x = 0; x <= root; ++x) {
+            if (succs[x] != null) {
+                succPositions[x] = new int[succs[x].length];
+                for (int k = 0; k < succs[x].length; ++k) {
+                    int target = succs[x][k];
+                    succPositions[x][k] = nPreds[target];
+                    preds[target][nPreds[target]++] = x;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the immediate dominators by the algorithm of Cooper,
+     * Harvey and Kennedy, "A Simple, Fast Dominance Algorithm".
+     */
+    private void computeDominators() {
+        computeReversePostorder();
+        idom = new int[root + 1];
+        Arrays.fill(idom, -1);
+        idom[root] = root;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < order.length; ++i) {
+                int node = order[i];
+                int newIdom = -1;
+                for (int pred : preds[node]) {
+                    if (idom[pred] != -1) {
+                        newIdom = newIdom == -1 ? pred : intersect(pred, newIdom);
+                    }
+                }
+                if (idom[node] != newIdom) {
+                    idom[node] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private void computeReversePostorder() {
+        orderNumbers = new int[root + 1];
+        int[] postorder = new int[root + 1];
+        int nVisited = 0;
+        boolean[] visited = new boolean[root + 1];
+        // explicit stack of nodes and the positions of their next successors
+        int[] stack = new int[root + 1];
+        int[] nextSuccs = new int[root + 1];
+        int top = 0;
+        visited[root] = true;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[top - 1];
+            if (nextSuccs[top - 1] < succs[node].length) {
+                int succ = succs[node][nextSuccs[top - 1]++];
+                if (!visited[succ]) {
+                    visited[succ] = true;
+                    stack[top] = succ;
+                    nextSuccs[top] = 0;
+                    ++top;
+                }
+            } else {
+                postorder[nVisited++] = node;
+                --top;
+            }
+        }
+        order = new int[nVisited];
+        for (int i = 0; i < nVisited; ++i) {
+            order[i] = postorder[nVisited - 1 - i];
+            orderNumbers[order[i]] = i;
+        }
+    }
+
+    private int intersect(int node1, int node2) {
+        while (node1 != node2) {
+            while (orderNumbers[node1] > orderNumbers[node2]) {
+                node1 = idom[node1];
+            }
+            while (orderNumbers[node2] > orderNumbers[node1]) {
+                node2 = idom[node2];
+            }
+        }
+        return node1;
+    }
+
+    /**
+     * Places phi-definitions of each variable on the iterated
+     * dominance frontier of its definitions.
+     */
+    private void placePhis() {
+        int[][] frontiers = computeDominanceFrontiers();
+        // group the definitions by variables
+        Var[] vars = new Var[cfg.getIR().getVars().size()];
+        int[][] defNodes = new int[vars.length][];
+        int[] nDefNodes = new int[vars.length];
+        for (int node = 0; node <= root; ++node) {
+            for (Def def = defs[node]; def != null; def = def.next) {
+                int v = def.var.getIndex();
+                vars[v] = def.var;
+                defNodes[v] = append(defNodes[v], nDefNodes[v]++, node);
+            }
+        }
+        // the nodes that have a phi of, or have been queued for,
+        // the current variable are stamped with the variable index plus one
+        int[] hasPhi = new int[root + 1];
+        int[] queued = new int[root + 1];
+        int[] workList = new int[root + 1];
+        for (int v = 0; v < vars.length; ++v) {
+            int stamp = v + 1;
+            int size = 0;
+            for (int i = 0; i < nDefNodes[v]; ++i) {
+                int node = defNodes[v][i];
+                if (queued[node] != stamp) {
+                    queued[node] = stamp;
+                    workList[size++] = node;
+                }
+            }
+            while (size > 0) {
+                for (int frontier : frontiers[workList[--size]]) {
+                    if (hasPhi[frontier] != stamp) {
+                        hasPhi[frontier] = stamp;
+                        Def phi = new Def(vars[v], null, frontier);
+                        phi.operands = new Def[preds[frontier].length];
+                        phi.next = phis[frontier];
+                        phis[frontier] = phi;
+                        allDefs.add(phi);
+                        if (queued[frontier] != stamp) {
+                            queued[frontier] = stamp;
+                            workList[size++] = frontier;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the dominance frontier of each node by walking up the
+     * dominator tree from the predecessors of each join node.
+     */
+    private int[][] computeDominanceFrontiers() {
+        int[][] frontiers = new int[root + 1][];
+        int[] sizes = new int[root + 1];
+        for (int node : order) {
+            if (preds[node].length < 2) {
+                continue;
+            }
+            for (int pred : preds[node]) {
+                for (int runner = pred; runner != idom[node]; runner = idom[runner]) {
+                    // node is the last element if it has been added by
+                    // the walk from another predecessor
+                    if (sizes[runner] == 0 ||
+                            frontiers[runner][sizes[runner] - 1] != node) {
+                        frontiers[runner] = append(frontiers[runner], sizes[runner]++, node);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i <= root; ++i) {
+            frontiers[i] = frontiers[i] == null ? new int[0] :
+                    Arrays.copyOf(frontiers[i], sizes[i]);
+        }
+        return frontiers;
+    }
+
+    /**
+     * Renames the uses of the variables to their reaching definitions,
+     * by a preorder walk of the dominator tree.
+     */
+    private void rename() {
+        int[][] children = computeDominatorTree();
+        Def[] current = new Def[cfg.getIR().getVars().size()];
+        // node i is pushed as i to be visited, and as ~i to be left
+        int[] stack = new int[2 * (root + 1)];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (node >= 0) {
+                stack[top++] = ~node;
+                for (Def phi = phis[node]; phi != null; phi = phi.next) {
+                    push(current, phi);
+                }
+                for (Def def = defs[node]; def != null; def = def.next) {
+                    def.resolveOperands(current);
+                    push(current, def);
+                }
+                if (branches[node] != null) {
+                    branches[node].resolveOperands(current);
+                }
+                for (int k = 0; k < succs[node].length; ++k) {
+                    int pos = succPositions[node][k];
+                    for (Def phi = phis[succs[node][k]]; phi != null; phi = phi.next) {
+                        Def operand = current[phi.var.getIndex()];
+                        phi.operands[pos] = operand;
+                        if (operand != null) {
+                            operand.addUser(phi);
+                        }
+                    }
+                }
+                for (int child : children[node]) {
+                    stack[top++] = child;
+                }
+            } else {
+                node = ~node;
+                for (Def def = defs[node]; def != null; def = def.next) {
+                    current[def.var.getIndex()] = def.shadowed;
+                }
+                for (Def phi = phis[node]; phi != null; phi = phi.next) {
+                    current[phi.var.getIndex()] = phi.shadowed;
+                }
+            }
+        }
+    }
+
+    private static void push(Def[] current, Def def) {
+        int v = def.var.getIndex();
+        def.shadowed = current[v];
+        current[v] = def;
+    }
+
+    private int[][] computeDominatorTree() {
+        int[] nChildren = new int[root + 1];
+        for (int node : order) {
+            if (node != root) {
+                ++nChildren[idom[node]];
+            }
+        }
+        int[][] children = new int[root + 1][];
+        for (int i = 0; i <= root; ++i) {
+            children[i] = new int[nChildren[i]];
+            nChildren[i] = 0;
+        }
+        for (int node : order) {
+            if (node != root) {
+                children[idom[node]][nChildren[idom[node]]++] = node;
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Propagates the values along the def-use edges, and the
+     * executability along the CFG edges, until a fixed point.
+     */
+    private void propagate() {
+        if (conditional) {
+            executable = new boolean[root + 1];
+            executableEdges = new boolean[root + 1][];
+            for (int i = 0; i <= root; ++i) {
+                executableEdges[i] = new boolean[preds[i].length];
+            }
+            newNodes = new int[root + 1];
+            executable[root] = true;
+            markEdge(root, 0); // the entry is the first successor of root
+        } else {
+            for (Def def : allDefs) {
+                if (def.operands == null) { // the others are queued by their operands
+                    enqueue(def);
+                }
+            }
+        }
+        while (nNewNodes > 0 || !workList.isEmpty()) {
+            while (nNewNodes > 0) {
+                visitNode(newNodes[--nNewNodes]);
+            }
+            Def def = workList.poll();
+            if (def == null) {
+                continue;
+            }
+            def.queued = false;
+            Value newValue = meet(def.value, evaluate(def));
+            if (!newValue.equals(def.value)) {
+                def.value = newValue;
+                if (def.var == null) {
+                    markBranchEdges(def);
+                }
+                for (Def user : def.users) {
+                    if (isExecutable(user.node)) {
+                        enqueue(user);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isExecutable(int node) {
+        return !conditional || executable[node];
+    }
+
+    private void enqueue(Def def) {
+        if (!def.queued) {
+            def.queued = true;
+            workList.add(def);
+        }
+    }
+
+    /**
+     * Evaluates the definitions at a node that has just become executable,
+     * and marks its out edges executable unless it is a branch.
+     */
+    private void visitNode(int node) {
+        enqueueAll(phis[node]);
+        enqueueAll(defs[node]);
+        if (branches[node] != null) {
+            enqueue(branches[node]);
+        } else {
+            for (int k = 0; k < succs[node].length; ++k) {
+                markEdge(node, k);
+            }
+        }
+    }
+
+    private void enqueueAll(Def defs) {
+        for (Def def = defs; def != null; def = def.next) {
+            enqueue(def);
+        }
+    }
+
+    /**
+     * Marks edge node -> succs[node][k] executable.
+     */
+    private void markEdge(int node, int k) {
+        int target = succs[node][k];
+        int pos = succPositions[node][k];
+        if (executableEdges[target][pos]) {
+            return;
+        }
+        executableEdges[target][pos] = true;
+        if (!executable[target]) {
+            executable[target] = true;
+            newNodes[nNewNodes++] = target;
+        } else {
+            // the phi-definitions have one more executable operand
+            enqueueAll(phis[target]);
+        }
+    }
+
+    /**
+     * Marks the out edges of a branch that are feasible
+     * on the (new) value of its condition.
+     */
+    private void markBranchEdges(Def branch) {
+        int node = branch.node;
+        Value value = branch.value;
+        for (Edge<Stmt> edge : cfg.getOutEdgesOf(nodes[node])) {
+            if (value.isNAC() ||
+                    branchEvaluator.isFeasible(edge, value.getConstant())) {
+                int target = edge.getTarget().getIndex();
+                for (int k = 0; k < succs[node].length; ++k) {
+                    if (succs[node][k] == target) {
+                        markEdge(node, k);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private Value evaluate(Def def) {
+        if (conditional && def.isPhi()) {
+            // only the operands along executable edges are met
+            boolean[] executableOperands = executableEdges[def.node];
+            Value result = Value.getUndef();
+            for (int i = 0; i < def.operands.length; ++i) {
+                if (executableOperands[i]) {
+                    result = meet(result, Def.valueOf(def.operands[i]));
+                }
+            }
+            return result;
+        }
+        if (def.var == null && def.rvalue instanceof ConditionExp cond &&
+                def.operands != null) {
+            return BranchEvaluator.evaluate(cond.getOperator(),
+                    Def.valueOf(def.operands[0]), Def.valueOf(def.operands[1]));
+        }
+        return def.evaluate();
+    }
+
+    private static Value meet(Value v1, Value v2) {
+        if (v1.isUndef()) {
+            return v2;
+        } else if (v2.isUndef()) {
+            return v1;
+        } else if (v1.isNAC() || v2.isNAC() ||
+                v1.getConstant() != v2.getConstant()) {
+            return Value.getNAC();
+        } else {
+            return v1;
+        }
+    }
+
+    private static int[] append(int[] array, int size, int value) {
+        if (array == null) {
+            array = new int[4];
+        } else if (size == array.length) {
+            array = Arrays.copyOf(array, size * 2);
+        }
+        array[size] = value;
+        return array;
+    }
+
+    /**
+     * A definition of an int-holding variable in SSA form, i.e.,
+     * a parameter, an assignment, or a phi-definition at a join node.
+     * The condition of a branch is also represented by a definition
+     * without a variable, so that it is re-evaluated like the others.
+     */
+    private static class Def {
+
+        /**
+         * The defined variable, or null for the condition of a branch.
+         */
+        private final Var var;
+
+        /**
+         * Right-hand side of the assignment, or null for parameters
+         * and phi-definitions. For the condition of a branch, it is the
+         * condition of the If, or the variable of the SwitchStmt.
+         */
+        private final RValue rvalue;
+
+        private final int node;
+
+        /**
+         * Reaching definitions of the operands. For a phi-definition,
+         * they are indexed by the predecessors of its node; for a
+         * binary expression, they are its two operands; for a copy,
+         * it is the copied variable. Null stands for UNDEF.
+         */
+        private Def[] operands;
+
+        private Value value = Value.getUndef();
+
+        /**
+         * Definitions whose operands include this definition.
+         */
+        private List<Def> users = List.of();
+
+        /**
+         * Next definition at the same node.
+         */
+        private Def next;
+
+        /**
+         * The definition of the same variable that this definition
+         * shadows during renaming.
+         */
+        private Def shadowed;
+
+        private boolean queued;
+
+        private Def(Var var, RValue rvalue, int node) {
+            this.var = var;
+            this.rvalue = rvalue;
+            this.node = node;
+        }
+
+        private boolean isPhi() {
+            return rvalue == null && operands != null;
+        }
+
+        private void addUser(Def user) {
+            if (users.isEmpty()) {
+                users = new ArrayList<>(2);
+            }
+            users.add(user);
+        }
+
+        private void resolveOperands(Def[] current) {
+            if (rvalue instanceof Var v && ConstantPropagation.canHoldInt(v)) {
+                operands = new Def[]{ current[v.getIndex()] };
+            } else if (rvalue instanceof BinaryExp exp &&
+                    ConstantPropagation.canHoldInt(exp.getOperand1()) &&
+                    ConstantPropagation.canHoldInt(exp.getOperand2())) {
+                operands = new Def[]{
+                        current[exp.getOperand1().getIndex()],
+                        current[exp.getOperand2().getIndex()]
+                };
+            }
+            if (operands != null) {
+                for (Def operand : operands) {
+                    if (operand != null) {
+                        operand.addUser(this);
+                    }
+                }
+            }
+        }
+
+        private Value evaluate() {
+            if (rvalue == null) {
+                if (operands == null) { // parameter
+                    return Value.getNAC();
+                }
+                Value result = Value.getUndef();
+                for (Def operand : operands) {
+                    result = meet(result, valueOf(operand));
+                }
+                return result;
+            } else if (rvalue instanceof IntLiteral literal) {
+                return Value.makeConstant(literal.getValue());
+            } else if (operands == null) {
+                // invocations, field and array loads, casts, etc.,
+                // and binary expressions of non-int operands
+                return Value.getNAC();
+            } else if (rvalue instanceof Var) {
+                return valueOf(operands[0]);
+            } else {
+                BinaryExp exp = (BinaryExp) rvalue;
+                Value v1 = valueOf(operands[0]);
+                Value v2 = valueOf(operands[1]);
+                if (v1.isUndef() || v2.isUndef()) {
+                    return Value.getUndef();
+                }
+                CPFact fact = new CPFact();
+                fact.update(exp.getOperand1(), v1);
+                fact.update(exp.getOperand2(), v2);
+                return ConstantPropagation.evaluate(exp, fact);
+            }
+        }
+
+        private static Value valueOf(Def def) {
+            return def == null ? Value.getUndef() : def.value;
+        }
+    }
+
+    /**
+     * Constant propagation facts of the nodes, built on demand.
+     * The IN fact of a node is the OUT fact of its immediate dominator
+     * updated by the phi-definitions at the node, and the OUT fact
+     * is the IN fact updated by the definitions at the node.
+     * The facts of the nodes that are not executable are empty.
+     */
+    private class Result extends IndexedDataflowResult<Stmt, CPFact> {
+
+        private Result(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public CPFact getInFact(Stmt stmt) {
+            if (cfg.isEntry(stmt)) {
+                // the same as the dense solver, the entry has no IN fact
+                return null;
+            }
+            CPFact fact = super.getInFact(stmt);
+            if (fact == null) {
+                int node = stmt.getIndex();
+                if (isExecutable(node)) {
+                    fact = getOutFact(idom[node]).copy();
+                    update(fact, phis[node]);
+                } else {
+                    fact = new CPFact(true);
+                }
+                setInFact(stmt, fact);
+            }
+            return fact;
+        }
+
+        @Override
+        public CPFact getOutFact(Stmt stmt) {
+            return getOutFact(stmt.getIndex());
+        }
+
+        private CPFact getOutFact(int node) {
+            if (node == root) {
+                return new CPFact(true);
+            }
+            CPFact fact = super.getOutFact(nodes[node]);
+            if (fact != null) {
+                return fact;
+            }
+            if (!isExecutable(node)) {
+                // the dominators of an executable node are executable,
+                // so such nodes are never on the path below
+                fact = new CPFact(true);
+                setOutFact(nodes[node], fact);
+                return fact;
+            }
+            // build the facts down from the closest dominator whose
+            // OUT fact is known, without recursion
+            int length = 0;
+            int top = node;
+            while (top != root && super.getOutFact(nodes[top]) == null) {
+                ++length;
+                top = idom[top];
+            }
+            int[] path = new int[length];
+            for (int i = 0; i < length; ++i) {
+                path[i] = node;
+                node = idom[node];
+            }
+            fact = top == root ? new CPFact(true) : super.getOutFact(nodes[top]);
+            for (int i = length - 1; i >= 0; --i) {
+                node = path[i];
+                fact = fact.copy();
+                update(fact, phis[node]);
+                update(fact, defs[node]);
+                setOutFact(nodes[node], fact);
+            }
+            return fact;
+        }
+    }
+
+    /**
+     * Updates the fact by the given chain of definitions.
+     */
+    private static void update(CPFact fact, Def defs) {
+        for (Def def = defs; def != null; def = def.next) {
+            fact.update(def.var, def.value);
+        }
+    }
+}
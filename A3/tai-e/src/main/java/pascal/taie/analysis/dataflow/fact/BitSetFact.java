@@ -0,0 +1,293 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.Streams;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Represents set-like data-flow facts as bit vectors. Each element is
+ * mapped to a bit through an {@link Indexer}, so that set operations,
+ * e.g., union, intersection, difference and equality test, are performed
+ * word by word on plain long arrays.
+ * <p>
+ * All bit-set facts of the same analysis on the same method should share
+ * the same indexer, otherwise the bits of different facts are meaningless
+ * to each other.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFact<E> extends SetFact<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private final Indexer<E> indexer;
+
+    private long[] words;
+
+    /**
+     * Creates an empty fact.
+     *
+     * @param indexer  the indexer which maps elements to bits
+     * @param capacity the number of elements that can be indexed by
+     *                 the indexer, used to pre-allocate the bit vector.
+     */
+    public BitSetFact(Indexer<E> indexer, int capacity) {
+        this(indexer, new long[wordIndex(capacity + 63)]);
+    }
+
+    private BitSetFact(Indexer<E> indexer, long[] words) {
+        this.indexer = indexer;
+        this.words = words;
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >>> ADDRESS_BITS_PER_WORD;
+    }
+
+    private void ensureCapacity(int wordsRequired) {
+        if (words.length < wordsRequired) {
+            words = Arrays.copyOf(words, Math.max(2 * words.length, wordsRequired));
+        }
+    }
+
+    @Override
+    public boolean contains(E e) {
+        int index = indexer.getIndex(e);
+        int wordIndex = wordIndex(index);
+        return wordIndex < words.length &&
+                (words[wordIndex] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = indexer.getIndex(e);
+        int wordIndex = wordIndex(index);
+        ensureCapacity(wordIndex + 1);
+        long oldWord = words[wordIndex];
+        words[wordIndex] = oldWord | (1L << index);
+        return words[wordIndex] != oldWord;
+    }
+
+    @Override
+    public boolean remove(E e) {
+        int index = indexer.getIndex(e);
+        int wordIndex = wordIndex(index);
+        if (wordIndex >= words.length) {
+            return false;
+        }
+        long oldWord = words[wordIndex];
+        words[wordIndex] = oldWord & ~(1L << index);
+        return words[wordIndex] != oldWord;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<E> filter) {
+        boolean changed = false;
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            if (filter.test(indexer.getObject(i))) {
+                words[wordIndex(i)] &= ~(1L << i);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean union(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            long[] otherWords = that.words;
+            ensureCapacity(otherWords.length);
+            boolean changed = false;
+            for (int i = 0; i < otherWords.length; ++i) {
+                long oldWord = words[i];
+                words[i] = oldWord | otherWords[i];
+                changed |= words[i] != oldWord;
+            }
+            return changed;
+        } else {
+            boolean changed = false;
+            for (E e : other.set) {
+                changed |= add(e);
+            }
+            return changed;
+        }
+    }
+
+    @Override
+    public boolean intersect(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            long[] otherWords = that.words;
+            boolean changed = false;
+            for (int i = 0; i < words.length; ++i) {
+                long oldWord = words[i];
+                words[i] = i < otherWords.length ? oldWord & otherWords[i] : 0;
+                changed |= words[i] != oldWord;
+            }
+            return changed;
+        } else {
+            return removeIf(e -> !other.contains(e));
+        }
+    }
+
+    @Override
+    public boolean difference(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            long[] otherWords = that.words;
+            int n = Math.min(words.length, otherWords.length);
+            boolean changed = false;
+            for (int i = 0; i < n; ++i) {
+                long oldWord = words[i];
+                words[i] = oldWord & ~otherWords[i];
+                changed |= words[i] != oldWord;
+            }
+            return changed;
+        } else {
+            boolean changed = false;
+            for (E e : other.set) {
+                changed |= remove(e);
+            }
+            return changed;
+        }
+    }
+
+    @Override
+    public void set(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            if (words.length < that.words.length) {
+                words = that.words.clone();
+            } else {
+                System.arraycopy(that.words, 0, words, 0, that.words.length);
+                Arrays.fill(words, that.words.length, words.length, 0);
+            }
+        } else {
+            super.set(other);
+        }
+    }
+
+    @Override
+    public BitSetFact<E> copy() {
+        return new BitSetFact<>(indexer, words.clone());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Stream<E> stream() {
+        return IntStream.iterate(nextSetBit(0), i -> i >= 0, i -> nextSetBit(i + 1))
+                .mapToObj(indexer::getObject);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * @return index of the first set bit on or after given index,
+     * or -1 if there is no such bit.
+     */
+    private int nextSetBit(int fromIndex) {
+        int wordIndex = wordIndex(fromIndex);
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+        long word = words[wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << ADDRESS_BITS_PER_WORD) +
+                        Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    /**
+     * Two bit-set facts are equal if they have the same bits set.
+     * Bit-set facts are never equal to plain {@link SetFact}s, as they
+     * are not supposed to be mixed in the same analysis.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BitSetFact<?> that)) {
+            return false;
+        }
+        long[] shorter = words.length <= that.words.length ? words : that.words;
+        long[] longer = shorter == words ? that.words : words;
+        for (int i = 0; i < shorter.length; ++i) {
+            if (shorter[i] != longer[i]) {
+                return false;
+            }
+        }
+        for (int i = shorter.length; i < longer.length; ++i) {
+            if (longer[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // zero words leave h unchanged, so facts that differ only in
+        // trailing zero words (which equals() ignores) get the same hash
+        long h = 1234;
+        for (int i = words.length; --i >= 0; ) {
+            h ^= words[i] * (i + 1);
+        }
+        return (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public String toString() {
+        return Streams.toString(stream());
+    }
+}
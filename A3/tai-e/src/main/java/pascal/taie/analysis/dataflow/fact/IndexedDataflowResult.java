@@ -0,0 +1,93 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Data-flow result which stores the facts in arrays indexed by
+ * {@link Indexable#getIndex()} of the nodes, e.g., the index of
+ * {@link pascal.taie.ir.stmt.Stmt}s, which is dense within an IR.
+ * Compared with {@link DataflowResult}, it saves the hash lookups
+ * and the map entries for every node.
+ *
+ * @param <Node> type of nodes
+ * @param <Fact> type of data-flow facts
+ */
+public class IndexedDataflowResult<Node extends Indexable, Fact>
+        extends DataflowResult<Node, Fact> {
+
+    private Object[] inFacts;
+
+    private Object[] outFacts;
+
+    /**
+     * @param capacity the expected number of nodes, i.e., the largest
+     *                 node index plus one.
+     */
+    public IndexedDataflowResult(int capacity) {
+        super(Collections.emptyMap(), Collections.emptyMap());
+        inFacts = new Object[capacity];
+        outFacts = new Object[capacity];
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        return get(inFacts, node.getIndex());
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        int index = node.getIndex();
+        if (index >= inFacts.length) {
+            inFacts = grow(inFacts, index);
+        }
+        inFacts[index] = fact;
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        return get(outFacts, node.getIndex());
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        int index = node.getIndex();
+        if (index >= outFacts.length) {
+            outFacts = grow(outFacts, index);
+        }
+        outFacts[index] = fact;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Fact get(Object[] facts, int index) {
+        return index < facts.length ? (Fact) facts[index] : null;
+    }
+
+    private static Object[] grow(Object[] facts, int index) {
+        return Arrays.copyOf(facts, Math.max(facts.length * 2, index + 1));
+    }
+}
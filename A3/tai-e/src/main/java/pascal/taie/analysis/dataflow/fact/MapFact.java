@@ -23,6 +23,7 @@
 package pascal.taie.analysis.dataflow.fact;
 
 import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.PersistentMap;
 
 import java.util.Comparator;
 import java.util.Map;
@@ -47,11 +48,15 @@ public class MapFact<K, V> {
 
     /**
      * Constructs a new MapFact with the same mappings as specified Map.
+     * If the given map is a {@link PersistentMap}, the new fact is also
+     * backed by a PersistentMap, which shares the mappings with given map
+     * and is copied in constant time.
      *
      * @param map the map whose mappings are to be placed in this map.
      */
     public MapFact(Map<K, V> map) {
-        this.map = Maps.newHybridMap(map);
+        this.map = map instanceof PersistentMap<K, V> persistentMap ?
+                persistentMap.copy() : Maps.newHybridMap(map);
     }
 
     /**
@@ -87,6 +92,11 @@ public class MapFact<K, V> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean copyFrom(MapFact<K, V> fact) {
+        if (map.isEmpty() && map instanceof PersistentMap) {
+            // share the mappings of fact instead of copying them one by one
+            map.putAll(fact.map);
+            return !map.isEmpty();
+        }
         boolean changed = false;
         for (Map.Entry<K, V> entry : fact.map.entrySet()) {
             changed |= update(entry.getKey(), entry.getValue());
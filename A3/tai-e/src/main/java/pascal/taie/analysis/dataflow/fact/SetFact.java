@@ -26,7 +26,6 @@ import pascal.taie.util.collection.CollectionUtils;
 import pascal.taie.util.collection.Sets;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -45,7 +44,7 @@ public class SetFact<E> {
     }
 
     public SetFact() {
-        this(Collections.emptySet());
+        set = Sets.newHybridSet();
     }
 
     /**
@@ -119,6 +118,24 @@ public class SetFact<E> {
         return result;
     }
 
+    /**
+     * Removes all elements of other fact from this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean difference(SetFact<E> other) {
+        return set.removeAll(other.set);
+    }
+
+    /**
+     * @return a new fact which is the difference of this and other facts.
+     */
+    public SetFact<E> differenceWith(SetFact<E> other) {
+        SetFact<E> result = copy();
+        result.difference(other);
+        return result;
+    }
+
     /**
      * Sets the content of this set to the same as other set.
      */
@@ -131,7 +148,7 @@ public class SetFact<E> {
      * Creates and returns a copy of this fact.
      */
     public SetFact<E> copy() {
-        return new SetFact<>(this.set);
+        return new SetFact<>(set);
     }
 
     /**
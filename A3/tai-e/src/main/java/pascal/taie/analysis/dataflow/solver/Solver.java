@@ -22,9 +22,20 @@
 
 package pascal.taie.analysis.dataflow.solver;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.Analysis;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -35,10 +46,30 @@ import pascal.taie.analysis.graph.cfg.CFG;
  */
 public abstract class Solver<Node, Fact> {
 
+    private static final Logger logger = LogManager.getLogger(Solver.class);
+
+    /**
+     * Numbers of node transfers performed by the solvers in the current
+     * run, keyed by the IDs of the analyses. Cleared when World is reset.
+     */
+    private static final Map<String, LongAdder> nodeVisits = Maps.newConcurrentMap();
+
+    static {
+        World.registerResetCallback(nodeVisits::clear);
+    }
+
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Number of node transfers performed by this solver on all CFGs.
+     */
+    private final LongAdder analysisNodeVisits;
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
         this.analysis = analysis;
+        String id = analysis instanceof Analysis a ?
+                a.getId() : analysis.getClass().getSimpleName();
+        analysisNodeVisits = nodeVisits.computeIfAbsent(id, __ -> new LongAdder());
     }
 
     /**
@@ -49,6 +80,28 @@ public abstract class Solver<Node, Fact> {
         return new WorkListSolver<>(analysis);
     }
 
+    /**
+     * Static factory method to create a new solver for given analysis
+     * with given solving strategy.
+     *
+     * @param strategy "worklist" for the plain FIFO work-list solver,
+     *                 or "priority" for the work-list solver which
+     *                 processes nodes in (reverse) postorder of the CFG.
+     *                 If it is null, the default solver is created.
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, String strategy) {
+        if (strategy == null) {
+            return makeSolver(analysis);
+        }
+        return switch (strategy) {
+            case "worklist" -> new WorkListSolver<>(analysis);
+            case "priority" -> new PriorityWorkListSolver<>(analysis);
+            default -> throw new ConfigException(
+                    "Unknown data-flow solver strategy: " + strategy);
+        };
+    }
+
     /**
      * Starts this solver on the given CFG.
      *
@@ -57,17 +110,40 @@ public abstract class Solver<Node, Fact> {
      */
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
         DataflowResult<Node, Fact> result = initialize(cfg);
-        doSolve(cfg, result);
+        int visits = doSolve(cfg, result);
+        analysisNodeVisits.add(visits);
+        logger.debug("{} visited {} nodes ({} in CFG) of {}",
+                getClass().getSimpleName(), visits,
+                cfg.getNumberOfNodes(), cfg.getMethod());
         return result;
     }
 
+    /**
+     * @return the number of node transfers performed for the analysis
+     * of given ID on all CFGs solved in the current run.
+     */
+    public static long getNodeVisits(String analysisId) {
+        LongAdder visits = nodeVisits.get(analysisId);
+        return visits == null ? 0 : visits.sum();
+    }
+
+    /**
+     * Logs the total numbers of node transfers of the analyses
+     * in the current run. This is called when all analyses finish.
+     */
+    public static void logNodeVisits() {
+        nodeVisits.forEach((id, visits) ->
+                logger.info("Data-flow solvers visited {} nodes for {}",
+                        visits.sum(), id));
+    }
+
     /**
      * Creates and initializes a new data-flow result for given CFG.
      *
      * @return the initialized data-flow result
      */
     private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        DataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -76,14 +152,30 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
+    /**
+     * Creates an empty data-flow result for given CFG. For CFGs of
+     * statements, whose indexes are dense within the IR (entry and exit
+     * nodes take the two indexes after the last statement), returns
+     * an {@link IndexedDataflowResult}.
+     */
+    @SuppressWarnings("unchecked")
+    private DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt) {
+            return (DataflowResult<Node, Fact>)
+                    new IndexedDataflowResult<Stmt, Fact>(cfg.getNumberOfNodes());
+        } else {
+            return new DataflowResult<>();
+        }
+    }
+
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         // TODO - finish me
 
         result.setOutFact(cfg.getEntry(),analysis.newBoundaryFact(cfg));
         for(Node node: cfg){
             if(node != cfg.getEntry()) {
-                result.setOutFact(node, analysis.newInitialFact());
-                result.setInFact(node, analysis.newInitialFact());
+                result.setOutFact(node, analysis.newInitialFact(cfg));
+                result.setInFact(node, analysis.newInitialFact(cfg));
             }
         }
     }
@@ -92,24 +184,32 @@ public abstract class Solver<Node, Fact> {
         result.setInFact(cfg.getExit(), analysis.newBoundaryFact(cfg));
         for (Node node : cfg) {
             if (node != cfg.getExit()) {
-                result.setInFact(node, analysis.newInitialFact());
-                result.setOutFact(node, analysis.newInitialFact());
+                result.setInFact(node, analysis.newInitialFact(cfg));
+                result.setOutFact(node, analysis.newInitialFact(cfg));
             }
         }
     }
 
     /**
      * Solves the data-flow problem for given CFG.
+     *
+     * @return the number of node transfers performed during solving.
      */
-    private void doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+    private int doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         if (analysis.isForward()) {
-            doSolveForward(cfg, result);
+            return doSolveForward(cfg, result);
         } else {
-            doSolveBackward(cfg, result);
+            return doSolveBackward(cfg, result);
         }
     }
 
-    protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * @return the number of node transfers performed during solving.
+     */
+    protected abstract int doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
 
-    protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * @return the number of node transfers performed during solving.
+     */
+    protected abstract int doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
 }
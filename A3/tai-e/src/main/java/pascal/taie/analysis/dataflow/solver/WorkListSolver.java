@@ -26,6 +26,7 @@ import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.SetQueue;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -39,8 +40,9 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
     }
 
     @Override
-    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+    protected int doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         // TODO - finish me
+        int visits = 0;
         Queue<Node> Worklist =  new LinkedList<Node>();
         for(Node node:cfg){
             if(node != cfg.getEntry() && node != cfg.getExit()) {
@@ -53,30 +55,36 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
             for(Node pred:cfg.getPredsOf(node)){
                 analysis.meetInto(result.getOutFact(pred),result.getInFact(node));
             }
+            ++visits;
             if(analysis.transferNode(node,result.getInFact(node),result.getOutFact(node))){
                 Worklist.addAll(cfg.getSuccsOf(node));
             }
         }
+        return visits;
     }
 
     @Override
-    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        boolean flag = true;
-        int cnt = 0;
-        do {
-            flag = false;
-            for (Node node : cfg.getNodes()) {
-                if (node != cfg.getExit()) { // 除去 exit
-                    Fact out = result.getOutFact(node);
-                    Fact in = result.getInFact(node);
-                    for (Node succ : cfg.getSuccsOf(node)) {
-                        Fact _in = result.getInFact(succ);
-                        analysis.meetInto(_in, out);
-                    }
-                    flag |= analysis.transferNode(node,in,out);
-                }
+    protected int doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        int visits = 0;
+        // SetQueue keeps FIFO order and never queues a node twice
+        Queue<Node> workList = new SetQueue<>();
+        for (Node node : cfg) {
+            if (node != cfg.getExit()) {
+                workList.add(node);
             }
-            System.out.println(++cnt);
-        } while (flag);
+        }
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact out = result.getOutFact(node);
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), out);
+            }
+            ++visits;
+            if (analysis.transferNode(node, result.getInFact(node), out)) {
+                // only predecessors can observe the change of in fact
+                workList.addAll(cfg.getPredsOf(node));
+            }
+        }
+        return visits;
     }
 }
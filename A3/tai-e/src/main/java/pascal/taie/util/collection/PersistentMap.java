@@ -0,0 +1,713 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link Map} backed by a persistent hash array mapped trie (HAMT).
+ * <p>
+ * The trie nodes are immutable, and each update copies only the nodes
+ * on the path from the root to the updated entry, i.e., O(log n) nodes.
+ * Hence {@link #copy()} is O(1), as the copy simply shares the trie
+ * with this map, and the two maps diverge lazily as they are updated.
+ * As the shape of the trie is determined by the keys it contains,
+ * {@link #equals(Object)} between two PersistentMaps skips the shared
+ * subtrees without visiting them.
+ * <p>
+ * This map does not permit null keys.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * Number of hash bits consumed at each level of the trie.
+     */
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    private Node<K, V> root;
+
+    private int size;
+
+    /**
+     * Sum of hash codes of the entries, as specified by {@link Map#hashCode()},
+     * maintained incrementally.
+     */
+    private int hashCode;
+
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    public PersistentMap() {
+    }
+
+    public PersistentMap(Map<? extends K, ? extends V> m) {
+        putAll(m);
+    }
+
+    /**
+     * @return a copy of this map, which shares the trie with this map.
+     */
+    public PersistentMap<K, V> copy() {
+        PersistentMap<K, V> copy = new PersistentMap<>();
+        copy.set(this);
+        return copy;
+    }
+
+    private void set(PersistentMap<K, V> other) {
+        root = other.root;
+        size = other.size;
+        hashCode = other.hashCode;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return root != null && root.find(key, hash(key), 0) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (root == null) {
+            return null;
+        }
+        Leaf<K, V> leaf = root.find(key, hash(key), 0);
+        return leaf != null ? leaf.value : null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(key, "PersistentMap does not permit null keys");
+        int hash = hash(key);
+        Leaf<K, V> leaf = new Leaf<>(hash, key, value);
+        if (root == null) {
+            root = leaf;
+            size = 1;
+            hashCode = leaf.hashCode();
+            return null;
+        }
+        Change<K, V> change = new Change<>();
+        root = root.put(leaf, 0, change);
+        Leaf<K, V> old = change.old;
+        if (old == null) {
+            ++size;
+            hashCode += leaf.hashCode();
+            return null;
+        } else {
+            if (change.changed) {
+                hashCode += leaf.hashCode() - old.hashCode();
+            }
+            return old.value;
+        }
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        if (isEmpty() && m instanceof PersistentMap<? extends K, ? extends V> other) {
+            @SuppressWarnings("unchecked")
+            PersistentMap<K, V> that = (PersistentMap<K, V>) other;
+            set(that);
+        } else {
+            super.putAll(m);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (root == null) {
+            return null;
+        }
+        Change<K, V> change = new Change<>();
+        root = root.remove(key, hash(key), 0, change);
+        Leaf<K, V> old = change.old;
+        if (old == null) {
+            return null;
+        }
+        --size;
+        hashCode -= old.hashCode();
+        return old.value;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+        hashCode = 0;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach(action);
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof PersistentMap<?, ?> that) {
+            return size == that.size && hashCode == that.hashCode &&
+                    Node.equals(root, that.root);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Records the effect of an update on the trie.
+     */
+    private static class Change<K, V> {
+
+        /**
+         * The leaf replaced or removed by the update, or null if
+         * the key was absent.
+         */
+        private Leaf<K, V> old;
+
+        /**
+         * Whether the update changes the trie.
+         */
+        private boolean changed;
+    }
+
+    /**
+     * Node of the trie. Each subtree with exactly one entry is a {@link Leaf},
+     * and each subtree whose entries have the same hash is a {@link Collision},
+     * so that the trie for a given set of keys has a unique shape.
+     */
+    private abstract static class Node<K, V> {
+
+        abstract Leaf<K, V> find(Object key, int hash, int shift);
+
+        /**
+         * @return the updated node, or this node if nothing changes.
+         */
+        abstract Node<K, V> put(Leaf<K, V> leaf, int shift, Change<K, V> change);
+
+        /**
+         * @return the updated node, which is null if it becomes empty,
+         * or this node if nothing changes.
+         */
+        abstract Node<K, V> remove(Object key, int hash, int shift, Change<K, V> change);
+
+        abstract void forEach(BiConsumer<? super K, ? super V> action);
+
+        static <K, V> boolean equals(Node<K, V> n1, Node<?, ?> n2) {
+            if (n1 == n2) {
+                return true;
+            }
+            if (n1 == null || n2 == null || n1.getClass() != n2.getClass()) {
+                return false;
+            }
+            return n1.equalsNode(n2);
+        }
+
+        /**
+         * @param node a node of the same class as this node.
+         */
+        abstract boolean equalsNode(Node<?, ?> node);
+
+        static <K, V> Node<K, V> merge(Leaf<K, V> l1, Leaf<K, V> l2, int shift) {
+            if (l1.hash == l2.hash) {
+                Leaf<K, V>[] leaves = newLeaves(2);
+                leaves[0] = l1;
+                leaves[1] = l2;
+                return new Collision<>(l1.hash, leaves);
+            }
+            int b1 = bit(l1.hash, shift);
+            int b2 = bit(l2.hash, shift);
+            if (b1 == b2) {
+                return Branch.of(b1, merge(l1, l2, shift + BITS));
+            } else {
+                return Branch.of(b1, l1, b2, l2);
+            }
+        }
+
+        /**
+         * Generic arrays cannot be created directly, so the nodes
+         * create their arrays by the following two methods.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        static <K, V> Node<K, V>[] newNodes(int length) {
+            return new Node[length];
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        static <K, V> Leaf<K, V>[] newLeaves(int length) {
+            return new Leaf[length];
+        }
+    }
+
+    private static class Leaf<K, V> extends Node<K, V> implements Map.Entry<K, V> {
+
+        private final int hash;
+
+        private final K key;
+
+        private final V value;
+
+        private Leaf(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        Leaf<K, V> find(Object key, int hash, int shift) {
+            return this.hash == hash && this.key.equals(key) ? this : null;
+        }
+
+        @Override
+        Node<K, V> put(Leaf<K, V> leaf, int shift, Change<K, V> change) {
+            if (hash == leaf.hash && key.equals(leaf.key)) {
+                change.old = this;
+                if (Objects.equals(value, leaf.value)) {
+                    return this;
+                }
+                change.changed = true;
+                return leaf;
+            }
+            change.changed = true;
+            return merge(this, leaf, shift);
+        }
+
+        @Override
+        Node<K, V> remove(Object key, int hash, int shift, Change<K, V> change) {
+            if (find(key, hash, shift) != null) {
+                change.old = this;
+                change.changed = true;
+                return null;
+            }
+            return this;
+        }
+
+        @Override
+        void forEach(BiConsumer<? super K, ? super V> action) {
+            action.accept(key, value);
+        }
+
+        @Override
+        boolean equalsNode(Node<?, ?> node) {
+            Leaf<?, ?> that = (Leaf<?, ?>) node;
+            return hash == that.hash && key.equals(that.key) &&
+                    Objects.equals(value, that.value);
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e &&
+                    key.equals(e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Internal node, which holds a child for each 5-bit slice of hash
+     * present in its subtree, in the order of the slices.
+     */
+    private static class Branch<K, V> extends Node<K, V> {
+
+        private final int bitmap;
+
+        private final Node<K, V>[] children;
+
+        private Branch(int bitmap, Node<K, V>[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        /**
+         * @return a branch with the single child at the given bit.
+         */
+        private static <K, V> Branch<K, V> of(int bit, Node<K, V> child) {
+            Node<K, V>[] children = newNodes(1);
+            children[0] = child;
+            return new Branch<>(bit, children);
+        }
+
+        /**
+         * @return a branch with two children at the given (different) bits.
+         */
+        private static <K, V> Branch<K, V> of(
+                int b1, Node<K, V> n1, int b2, Node<K, V> n2) {
+            Node<K, V>[] children = newNodes(2);
+            boolean inOrder = Integer.compareUnsigned(b1, b2) < 0;
+            children[0] = inOrder ? n1 : n2;
+            children[1] = inOrder ? n2 : n1;
+            return new Branch<>(b1 | b2, children);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Leaf<K, V> find(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            return children[index(bit)].find(key, hash, shift + BITS);
+        }
+
+        @Override
+        Node<K, V> put(Leaf<K, V> leaf, int shift, Change<K, V> change) {
+            int bit = bit(leaf.hash, shift);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                change.changed = true;
+                Node<K, V>[] newChildren = newNodes(children.length + 1);
+                System.arraycopy(children, 0, newChildren, 0, i);
+                newChildren[i] = leaf;
+                System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+                return new Branch<>(bitmap | bit, newChildren);
+            }
+            Node<K, V> child = children[i];
+            Node<K, V> newChild = child.put(leaf, shift + BITS, change);
+            return newChild == child ? this : replace(i, newChild);
+        }
+
+        @Override
+        Node<K, V> remove(Object key, int hash, int shift, Change<K, V> change) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = index(bit);
+            Node<K, V> child = children[i];
+            Node<K, V> newChild = child.remove(key, hash, shift + BITS, change);
+            if (newChild == child) {
+                return this;
+            }
+            if (newChild != null) {
+                if (children.length == 1 && !(newChild instanceof Branch)) {
+                    // pull the single leaf (or collision) up
+                    return newChild;
+                }
+                return replace(i, newChild);
+            }
+            if (children.length == 1) {
+                return null;
+            }
+            if (children.length == 2 && !(children[1 - i] instanceof Branch)) {
+                return children[1 - i];
+            }
+            Node<K, V>[] newChildren = newNodes(children.length - 1);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            return new Branch<>(bitmap & ~bit, newChildren);
+        }
+
+        private Branch<K, V> replace(int i, Node<K, V> child) {
+            Node<K, V>[] newChildren = children.clone();
+            newChildren[i] = child;
+            return new Branch<>(bitmap, newChildren);
+        }
+
+        @Override
+        void forEach(BiConsumer<? super K, ? super V> action) {
+            for (Node<K, V> child : children) {
+                child.forEach(action);
+            }
+        }
+
+        @Override
+        boolean equalsNode(Node<?, ?> node) {
+            Branch<?, ?> that = (Branch<?, ?>) node;
+            if (bitmap != that.bitmap) {
+                return false;
+            }
+            for (int i = 0; i < children.length; ++i) {
+                if (!Node.equals(children[i], that.children[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Leaves whose keys have the same hash.
+     */
+    private static class Collision<K, V> extends Node<K, V> {
+
+        private final int hash;
+
+        private final Leaf<K, V>[] leaves;
+
+        private Collision(int hash, Leaf<K, V>[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < leaves.length; ++i) {
+                if (leaves[i].key.equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Leaf<K, V> find(Object key, int hash, int shift) {
+            if (this.hash != hash) {
+                return null;
+            }
+            int i = indexOf(key);
+            return i >= 0 ? leaves[i] : null;
+        }
+
+        @Override
+        Node<K, V> put(Leaf<K, V> leaf, int shift, Change<K, V> change) {
+            if (hash != leaf.hash) {
+                // split this collision as a whole with the new leaf
+                change.changed = true;
+                int b1 = bit(hash, shift);
+                int b2 = bit(leaf.hash, shift);
+                if (b1 == b2) {
+                    return Branch.of(b1, put(leaf, shift + BITS, change));
+                } else {
+                    return Branch.of(b1, this, b2, leaf);
+                }
+            }
+            int i = indexOf(leaf.key);
+            if (i >= 0) {
+                Node<K, V> newLeaf = leaves[i].put(leaf, shift, change);
+                if (newLeaf == leaves[i]) {
+                    return this;
+                }
+                Leaf<K, V>[] newLeaves = leaves.clone();
+                newLeaves[i] = leaf;
+                return new Collision<>(hash, newLeaves);
+            }
+            change.changed = true;
+            Leaf<K, V>[] newLeaves = Arrays.copyOf(leaves, leaves.length + 1);
+            newLeaves[leaves.length] = leaf;
+            return new Collision<>(hash, newLeaves);
+        }
+
+        @Override
+        Node<K, V> remove(Object key, int hash, int shift, Change<K, V> change) {
+            int i = this.hash == hash ? indexOf(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            change.old = leaves[i];
+            change.changed = true;
+            if (leaves.length == 2) {
+                return leaves[1 - i];
+            }
+            Leaf<K, V>[] newLeaves = newLeaves(leaves.length - 1);
+            System.arraycopy(leaves, 0, newLeaves, 0, i);
+            System.arraycopy(leaves, i + 1, newLeaves, i, leaves.length - i - 1);
+            return new Collision<>(hash, newLeaves);
+        }
+
+        @Override
+        void forEach(BiConsumer<? super K, ? super V> action) {
+            for (Leaf<K, V> leaf : leaves) {
+                action.accept(leaf.key, leaf.value);
+            }
+        }
+
+        @Override
+        boolean equalsNode(Node<?, ?> node) {
+            Collision<?, ?> that = (Collision<?, ?>) node;
+            if (hash != that.hash || leaves.length != that.leaves.length) {
+                return false;
+            }
+            // leaves of a collision are unordered
+            for (Leaf<?, ?> leaf : that.leaves) {
+                int i = indexOf(leaf.key);
+                if (i < 0 || !Objects.equals(leaves[i].value, leaf.value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator(root);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Map.Entry<?, ?> e && e.getKey() != null &&
+                    containsKey(e.getKey()) &&
+                    Objects.equals(get(e.getKey()), e.getValue());
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            PersistentMap.this.clear();
+        }
+    }
+
+    /**
+     * Iterates over a snapshot of the trie, so that it is not affected by
+     * the modifications of the map, including {@link Iterator#remove()}.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        private final Deque<Node<K, V>> stack = new ArrayDeque<>();
+
+        private Leaf<K, V> next;
+
+        private Leaf<K, V> last;
+
+        private int collisionIndex;
+
+        private EntryIterator(Node<K, V> root) {
+            if (root != null) {
+                stack.push(root);
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (!stack.isEmpty()) {
+                Node<K, V> node = stack.peek();
+                if (node instanceof Leaf<K, V> leaf) {
+                    stack.pop();
+                    next = leaf;
+                    return;
+                } else if (node instanceof Collision<K, V> collision) {
+                    if (collisionIndex < collision.leaves.length) {
+                        next = collision.leaves[collisionIndex++];
+                        return;
+                    }
+                    stack.pop();
+                    collisionIndex = 0;
+                } else {
+                    stack.pop();
+                    Node<K, V>[] children = ((Branch<K, V>) node).children;
+                    for (int i = children.length - 1; i >= 0; --i) {
+                        stack.push(children[i]);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            advance();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            PersistentMap.this.remove(last.key);
+            last = null;
+        }
+    }
+}
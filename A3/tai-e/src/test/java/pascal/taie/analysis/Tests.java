@@ -23,6 +23,7 @@
 package pascal.taie.analysis;
 
 import org.junit.Assert;
+import pascal.taie.Assignment;
 import pascal.taie.Main;
 import pascal.taie.World;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
@@ -86,7 +87,7 @@ public final class Tests {
         String processArg = String.format("%s=analyses:[%s];action:%s;file:%s",
                 ResultProcessor.ID, id, action, file);
         Collections.addAll(args, "-a", processArg);
-        Main.main(args.toArray(new String[0]));
+        Assignment.run(args.toArray(new String[0]));
         if (action.equals("compare")) {
             Set<String> mismatches = World.get().getResult(ResultProcessor.ID);
             Assert.assertTrue("Mismatches of analysis \"" + id + "\":\n" +
@@ -0,0 +1,115 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures {@link DeadCodeDetection} on synthetic methods of increasing
+ * size. The time per statement should stay roughly constant as the
+ * methods grow, i.e., the analysis scales linearly.
+ * <p>
+ * This is not a unit test; run {@link #main(String[])} manually.
+ */
+public class DeadCodeBenchmark {
+
+    private static final String CLASS_NAME = "DeadCodeBench";
+
+    private static final int[] SIZES = { 1000, 2000, 4000, 8000, 16000 };
+
+    private static final int REPEATS = 20;
+
+    public static void main(String[] args) throws IOException {
+        System.out.printf("%8s %8s %12s %12s%n", "blocks", "stmts", "ms/run", "ns/stmt");
+        for (int size : SIZES) {
+            IR ir = buildIR(size);
+            DeadCodeDetection deadCode = new DeadCodeDetection(
+                    new AnalysisConfig(DeadCodeDetection.ID));
+            for (int i = 0; i < REPEATS; ++i) { // warm up
+                deadCode.analyze(ir);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < REPEATS; ++i) {
+                deadCode.analyze(ir);
+            }
+            long elapsed = (System.nanoTime() - start) / REPEATS;
+            int stmts = ir.getStmts().size();
+            System.out.printf("%8d %8d %12.3f %12.1f%n",
+                    size, stmts, elapsed / 1e6, (double) elapsed / stmts);
+        }
+    }
+
+    /**
+     * Generates a method with given number of blocks, runs dead code
+     * detection (and the analyses it requires) on it, and returns its IR.
+     */
+    private static IR buildIR(int blocks) throws IOException {
+        Path dir = Files.createTempDirectory("deadcode-bench");
+        Files.writeString(dir.resolve(CLASS_NAME + ".java"), generate(blocks));
+        Main.main(new String[]{
+                "-pp", "-cp", dir.toString(), "-m", CLASS_NAME,
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false",
+                "-a", DeadCodeDetection.ID,
+        });
+        return World.get().getClassHierarchy()
+                .getClass(CLASS_NAME)
+                .getDeclaredMethod("foo")
+                .getIR();
+    }
+
+    /**
+     * Each block contains a dead assignment, a branch on a parameter,
+     * and an unreachable branch on a constant.
+     */
+    private static String generate(int blocks) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("class ").append(CLASS_NAME).append(" {\n\n");
+        sb.append("    public static void main(String[] args) {\n");
+        sb.append("        foo(args.length);\n");
+        sb.append("    }\n\n");
+        sb.append("    static int foo(int p) {\n");
+        sb.append("        int x = 0;\n");
+        sb.append("        int c = 1;\n");
+        for (int i = 0; i < blocks; ++i) {
+            sb.append("        int d").append(i).append(" = x + ").append(i).append(";\n");
+            sb.append("        if (p > ").append(i).append(") {\n");
+            sb.append("            x = x + p;\n");
+            sb.append("        }\n");
+            sb.append("        if (c < 0) {\n");
+            sb.append("            x = x - ").append(i).append(";\n");
+            sb.append("        }\n");
+        }
+        sb.append("        return x;\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+}
@@ -25,6 +25,8 @@ package pascal.taie.analysis.dataflow.analysis;
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
 
+import java.util.List;
+
 public class DeadCodeTest {
 
     void testDCD(String inputClass) {
@@ -58,4 +60,44 @@ public class DeadCodeTest {
     public void testLoops() {
         testDCD("Loops");
     }
+
+    @Test
+    public void testPrioritySolver() {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;solver:priority",
+                "-a", "constprop=edge-refine:false;solver:priority");
+    }
+
+    @Test
+    public void testParallelism() {
+        for (String inputClass : List.of("ControlFlowUnreachable",
+                "UnreachableIfBranch", "UnreachableSwitchBranch",
+                "DeadAssignment", "Loops")) {
+            Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                    DeadCodeDetection.ID,
+                    "-a", "livevar=strongly:false",
+                    "-a", "constprop=edge-refine:false",
+                    "--parallelism", "4");
+        }
+    }
+
+    @Test
+    public void testSparseConstantPropagation() {
+        Tests.test("UnreachableSwitchBranch", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false;sparse:true");
+    }
+
+    @Test
+    public void testConditionalConstantPropagation() {
+        for (String inputClass : List.of("ControlFlowUnreachable",
+                "UnreachableIfBranch", "UnreachableSwitchBranch", "Loops")) {
+            Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                    DeadCodeDetection.ID,
+                    "-a", "livevar=strongly:false",
+                    "-a", "constprop=edge-refine:false;sparse:true;conditional:true");
+        }
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Test;
+import pascal.taie.analysis.Tests;
+
+public class CPTest {
+
+    /**
+     * Runs the sparse solver, which must reach the same facts
+     * as the dense solver that produced the expected results.
+     */
+    void testSparseCP(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/constprop/",
+                ConstantPropagation.ID, "edge-refine:false;sparse:true");
+    }
+
+    @Test
+    public void testSparseAssign() {
+        testSparseCP("Assign");
+    }
+
+    @Test
+    public void testSparseSimpleConstant() {
+        testSparseCP("SimpleConstant");
+    }
+
+    @Test
+    public void testSparseSimpleBinary() {
+        testSparseCP("SimpleBinary");
+    }
+
+    @Test
+    public void testSparseSimpleBranch() {
+        testSparseCP("SimpleBranch");
+    }
+
+    @Test
+    public void testSparseSimpleChar() {
+        testSparseCP("SimpleChar");
+    }
+
+    @Test
+    public void testSparseBranchConstant() {
+        testSparseCP("BranchConstant");
+    }
+
+    @Test
+    public void testSparseInterprocedural() {
+        testSparseCP("Interprocedural");
+    }
+}
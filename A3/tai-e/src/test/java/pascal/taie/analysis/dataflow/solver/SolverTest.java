@@ -0,0 +1,59 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Assignment;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+
+public class SolverTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/solver/";
+
+    /**
+     * Runs constant propagation (forward) and live variable analysis
+     * (backward) with given solver on the loop-heavy test case.
+     */
+    private static void solve(String solver) {
+        Assignment.run("-pp", "-cp", CLASS_PATH, "-m", "NestedLoops",
+                "-a", ConstantPropagation.ID + "=edge-refine:false;solver:" + solver,
+                "-a", LiveVariableAnalysis.ID + "=strongly:false;solver:" + solver);
+    }
+
+    @Test
+    public void testPriorityVisitsFewerNodes() {
+        solve("worklist");
+        long cpVisits = Solver.getNodeVisits(ConstantPropagation.ID);
+        long lvVisits = Solver.getNodeVisits(LiveVariableAnalysis.ID);
+        Assert.assertTrue(cpVisits > 0 && lvVisits > 0);
+        solve("priority");
+        long priorityCPVisits = Solver.getNodeVisits(ConstantPropagation.ID);
+        long priorityLVVisits = Solver.getNodeVisits(LiveVariableAnalysis.ID);
+        Assert.assertTrue("constprop: " + priorityCPVisits + " vs " + cpVisits,
+                priorityCPVisits < cpVisits);
+        Assert.assertTrue("livevar: " + priorityLVVisits + " vs " + lvVisits,
+                priorityLVVisits < lvVisits);
+    }
+}
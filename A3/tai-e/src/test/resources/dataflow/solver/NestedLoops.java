@@ -0,0 +1,36 @@
+class NestedLoops {
+
+    int nested(int n) {
+        int a = 0, b = 1, c = 2, d = 3;
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                for (int k = 0; k < n; ++k) {
+                    a = b + c;
+                    b = c + d;
+                    c = d + a;
+                    d = a + b;
+                }
+                a = a + j;
+            }
+            b = b + i;
+        }
+        return a + b + c + d;
+    }
+
+    int sequential(int n) {
+        int x = 1, y = 2, z = 3;
+        while (x < n) {
+            x = y + 1;
+        }
+        while (y < n) {
+            y = z + x;
+        }
+        while (z < n) {
+            z = x + y;
+            while (x > z) {
+                x = x - 1;
+            }
+        }
+        return x + y + z;
+    }
+}
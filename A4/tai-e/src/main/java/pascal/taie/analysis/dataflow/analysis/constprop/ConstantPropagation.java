@@ -41,8 +41,14 @@ public class ConstantPropagation extends
 
     public static final String ID = "constprop";
 
+    /**
+     * Whether the facts are backed by persistent maps, see {@link CPFact#CPFact(boolean)}.
+     */
+    private final boolean persistentFact;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        persistentFact = getOptions().getBooleanOrDefault("persistent-fact", false);
     }
 
     @Override
@@ -55,7 +61,7 @@ public class ConstantPropagation extends
         // TODO - finish me
 
 
-        CPFact cpFact = new CPFact();
+        CPFact cpFact = new CPFact(persistentFact);
         // 参数全为NAC
         for (Var var : cfg.getIR().getParams()) {
             //System.out.println("[*]param: "+var.toString());
@@ -71,7 +77,7 @@ public class ConstantPropagation extends
     public CPFact newInitialFact() {
         // TODO - finish me
 
-        return new CPFact();
+        return new CPFact(persistentFact);
     }
 
     @Override
@@ -120,9 +126,7 @@ public class ConstantPropagation extends
         CPFact tmp = out.copy();
         // out = in
         out.clear();
-        for (Map.Entry<Var, Value> entry : in.entries().toList()) {
-            out.update(entry.getKey(), entry.getValue());
-        }
+        out.copyFrom(in);
         System.out.println("[papaya]:stmt----" + stmt.toString());
         if (!(stmt instanceof DefinitionStmt)) return !tmp.equals(out);         // 判断是否赋值语句
         if (stmt.getDef().isEmpty() || !(stmt.getDef().get() instanceof Var)) return !tmp.equals(out);
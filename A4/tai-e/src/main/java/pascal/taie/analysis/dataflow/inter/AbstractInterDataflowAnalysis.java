@@ -33,6 +33,7 @@ import pascal.taie.analysis.graph.icfg.ICFGEdge;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
 
 /**
  * Provides common functionalities for {@link InterDataflowAnalysis} implementations.
@@ -121,8 +122,17 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
-        DataflowResult<Node, Fact> result = solver.solve();
+        String solverKind = getOptions().getString("solver");
+        DataflowResult<Node, Fact> result;
+        if (solverKind == null || solverKind.equals("worklist")) {
+            solver = new InterSolver<>(this, icfg);
+            result = solver.solve();
+        } else if (solverKind.equals("optimized")) {
+            solver = new InterSolver<>(this, icfg, true);
+            result = solver.solve();
+        } else {
+            throw new ConfigException("Unknown inter solver: " + solverKind);
+        }
         finish();
         return result;
     }
@@ -39,8 +39,6 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 
-import java.util.Map;
-
 /**
  * Implementation of interprocedural constant propagation for int values.
  */
@@ -53,7 +51,8 @@ public class InterConstantPropagation extends
 
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
-        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID,
+                "persistent-fact", getOptions().getBooleanOrDefault("persistent-fact", false)));
     }
 
     @Override
@@ -92,9 +91,7 @@ public class InterConstantPropagation extends
 
         CPFact tmp = out.copy();
         out.clear();
-        for (Map.Entry<Var, Value> entry : in.entries().toList()) {
-            out.update(entry.getKey(), entry.getValue());
-        }
+        out.copyFrom(in);
         if (stmt.getDef().isPresent() && !out.get((Var) stmt.getDef().get()).isUndef()) {
             out.remove((Var) stmt.getDef().get());
         }
@@ -157,7 +154,7 @@ public class InterConstantPropagation extends
          * 奶奶滴 一直在想怎么获得调用点滴信息 getCallSite 就行了
          * */
         Stmt callSite = edge.getCallSite();
-        CPFact res = new CPFact();
+        CPFact res = cp.newInitialFact();
         if (callSite.getDef().isEmpty()) {
             return res;
         }
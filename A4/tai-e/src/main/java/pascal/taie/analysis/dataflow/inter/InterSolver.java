@@ -22,15 +22,19 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.graph.icfg.FrozenICFG;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
 import pascal.taie.language.natives.EmptyNativeModel;
 import pascal.taie.util.collection.SetQueue;
 
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Set;
@@ -43,24 +47,48 @@ import java.util.stream.Collectors;
  */
 class InterSolver<Method, Node, Fact> {
 
+    private static final Logger logger = LogManager.getLogger(InterSolver.class);
+
     private final InterDataflowAnalysis<Node, Fact> analysis;
 
     private final ICFG<Method, Node> icfg;
 
+    /**
+     * Whether the solver is seeded from entry methods only and
+     * caches the facts transferred along ICFG edges.
+     */
+    private final boolean optimized;
+
     private DataflowResult<Node, Fact> result;
 
     private Queue<Node> workList;
 
+    private int nNodeTransfers;
+
+    private int nEdgeTransfers;
+
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
+        this(analysis, icfg, false);
+    }
+
+    InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                ICFG<Method, Node> icfg, boolean optimized) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.optimized = optimized;
     }
 
     DataflowResult<Node, Fact> solve() {
         result = new DataflowResult<>();
-        initialize();
-        doSolve();
+        if (optimized) {
+            doSolveOptimized();
+        } else {
+            initialize();
+            doSolve();
+        }
+        logger.info("{} inter solver: {} node transfers, {} edge transfers",
+                optimized ? "Optimized" : "Worklist", nNodeTransfers, nEdgeTransfers);
         return result;
     }
 
@@ -97,14 +125,100 @@ class InterSolver<Method, Node, Fact> {
             Node node = workList.poll();
             //System.out.println("[papaya]:"+node.toString());
             for(ICFGEdge<Node> edge:icfg.getInEdgesOf(node)){
+                ++nEdgeTransfers;
                 Fact tmp = analysis.transferEdge(edge,result.getOutFact(edge.getSource())); // 边转换之后再合并
                 if(tmp!=null) {
                     analysis.meetInto(tmp, result.getInFact(node));
                 }
             }
+            ++nNodeTransfers;
             if(analysis.transferNode(node,result.getInFact(node),result.getOutFact(node))){
                 workList.addAll(icfg.getSuccsOf(node));
             }
         }
     }
+
+    /**
+     * Solves the problem by starting from the entry methods, so that
+     * only the nodes reachable from them are processed. The fact
+     * transferred along each edge is cached, and recomputed only after
+     * the out fact of the source node of the edge changes.
+     * <p>
+     * The solver works on a {@link FrozenICFG}, and keeps the facts and
+     * the worklist in arrays indexed by node and edge ids.
+     */
+    @SuppressWarnings("unchecked")
+    private void doSolveOptimized() {
+        FrozenICFG<Method, Node> icfg = this.icfg instanceof FrozenICFG<Method, Node> f
+                ? f : new FrozenICFG<>(this.icfg);
+        int nNodes = icfg.getNumberOfNodes();
+        Fact[] inFacts = (Fact[]) new Object[nNodes];
+        Fact[] outFacts = (Fact[]) new Object[nNodes];
+        for (int n = 0; n < nNodes; ++n) {
+            inFacts[n] = analysis.newInitialFact();
+            outFacts[n] = analysis.newInitialFact();
+        }
+        BitSet boundaries = new BitSet(nNodes);
+        // each node is in the worklist at most once,
+        // thus a circular queue of nNodes suffices
+        int[] workList = new int[Math.max(nNodes, 1)];
+        int head = 0, size = 0;
+        BitSet inWorkList = new BitSet(nNodes);
+        for (int entry : icfg.getEntryNodeIndexes()) {
+            outFacts[entry] = analysis.newBoundaryFact(icfg.getNode(entry));
+            boundaries.set(entry);
+            if (!inWorkList.get(entry)) {
+                inWorkList.set(entry);
+                workList[(head + size++) % workList.length] = entry;
+            }
+        }
+        Fact[] edgeFacts = (Fact[]) new Object[icfg.getNumberOfEdges()];
+        BitSet validEdgeFacts = new BitSet(edgeFacts.length);
+        BitSet visited = new BitSet(nNodes);
+        while (size > 0) {
+            int n = workList[head];
+            head = (head + 1) % workList.length;
+            --size;
+            inWorkList.clear(n);
+            boolean changed = false;
+            if (!boundaries.get(n)) { // out facts of boundaries are fixed
+                Fact in = inFacts[n];
+                for (int i = icfg.getInEdgeStart(n); i < icfg.getInEdgeEnd(n); ++i) {
+                    int e = icfg.getInEdge(i);
+                    if (!validEdgeFacts.get(e)) {
+                        ++nEdgeTransfers;
+                        edgeFacts[e] = analysis.transferEdge(icfg.getEdge(e),
+                                outFacts[icfg.getSource(e)]);
+                        validEdgeFacts.set(e);
+                    }
+                    if (edgeFacts[e] != null) {
+                        analysis.meetInto(edgeFacts[e], in);
+                    }
+                }
+                ++nNodeTransfers;
+                changed = analysis.transferNode(icfg.getNode(n), in, outFacts[n]);
+            }
+            int outStart = icfg.getOutEdgeStart(n), outEnd = icfg.getOutEdgeEnd(n);
+            if (changed) {
+                validEdgeFacts.clear(outStart, outEnd);
+            }
+            // successors are processed at least once after the first
+            // visit of a node, even if its out fact is unchanged
+            if (!visited.get(n) || changed) {
+                visited.set(n);
+                for (int e = outStart; e < outEnd; ++e) {
+                    int succ = icfg.getTarget(e);
+                    if (!inWorkList.get(succ)) {
+                        inWorkList.set(succ);
+                        workList[(head + size++) % workList.length] = succ;
+                    }
+                }
+            }
+        }
+        for (int n = 0; n < nNodes; ++n) {
+            Node node = icfg.getNode(n);
+            result.setInFact(node, inFacts[n]);
+            result.setOutFact(node, outFacts[n]);
+        }
+    }
 }
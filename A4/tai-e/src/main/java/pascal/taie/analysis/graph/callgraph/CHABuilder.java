@@ -22,27 +22,70 @@
 
 package pascal.taie.analysis.graph.callgraph;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Implementation of the CHA algorithm.
  */
 class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
+    /**
+     * Traces the reachable methods, call sites and dispatch steps at
+     * TRACE level, which is disabled by default, see log4j2-trace.yml.
+     */
+    private static final Logger logger = LogManager.getLogger(CHABuilder.class);
+
+    /**
+     * Number of threads that resolve call sites, or 1 (or less) to build
+     * the call graph sequentially.
+     */
+    private final int parallelism;
+
     private ClassHierarchy hierarchy;
 
+    /**
+     * Caches the results of {@link #dispatch(JClass, Subsignature)}.
+     * The failed lookups are not cached.
+     */
+    private ConcurrentMap<MethodKey, JMethod> dispatchTable;
+
+    /**
+     * Caches the targets of virtual and interface calls, keyed by the
+     * declaring class and subsignature of the method reference,
+     * so that the call sites that refer to the same method share them.
+     */
+    private ConcurrentMap<MethodKey, Set<JMethod>> resolveTable;
+
+    CHABuilder(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
     @Override
     public CallGraph<Invoke, JMethod> build() {
         hierarchy = World.get().getClassHierarchy();
-        return buildCallGraph(World.get().getMainMethod());
+        dispatchTable = Maps.newConcurrentMap();
+        resolveTable = Maps.newConcurrentMap();
+        JMethod entry = World.get().getMainMethod();
+        CallGraph<Invoke, JMethod> callGraph = parallelism > 1 ?
+                buildCallGraphInParallel(entry) : buildCallGraph(entry);
+        logger.debug("#dispatch table entries: {}, #resolve table entries: {}",
+                dispatchTable.size(), resolveTable.size());
+        return callGraph;
     }
 
     private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
@@ -57,23 +100,84 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
             JMethod m = workList.poll();
             if(!RM.contains(m)){
                 RM.add(m);
-                System.out.println("[papaya]:[RM]"+m.toString());
+                logger.trace("[RM] {}", m);
                 callGraph.addReachableMethod(m); // 标记method reachable
                 for(Invoke callSite : callGraph.callSitesIn(m).toList()){
-                    System.out.println("[papaya]:[callSite]"+callSite.toString());
+                    logger.trace("[callSite] {}", callSite);
                     Set<JMethod> T = resolve(callSite);
                     if(T.isEmpty()) continue;
                     for(JMethod mm : T){
-                        System.out.println("[papaya]:[mm]"+mm.toString());
+                        logger.trace("[callee] {}", mm);
                         callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(callSite),callSite,mm));
-                        workList.add(mm);
+                        if (!RM.contains(mm)) { // 已经可达的方法不必再入队
+                            workList.add(mm);
+                        }
+                    }
+                }
+            }
+        }
+        return callGraph;
+    }
+
+    /**
+     * Builds the call graph level by level. The call sites in the methods
+     * of current level are resolved by {@link #parallelism} threads,
+     * and then the resulting edges are added to the call graph by this
+     * thread in the order of the methods, so that the call graph is the
+     * same as the one built by {@link #buildCallGraph(JMethod)}.
+     */
+    private CallGraph<Invoke, JMethod> buildCallGraphInParallel(JMethod entry) {
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(entry);
+        Set<JMethod> discovered = Sets.newSet();
+        discovered.add(entry);
+        List<JMethod> level = List.of(entry);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            while (!level.isEmpty()) {
+                List<JMethod> methods = level;
+                List<List<Edge<Invoke, JMethod>>> edges = pool.submit(() ->
+                        methods.parallelStream()
+                                .map(this::resolveEdgesOf)
+                                .toList()
+                ).join();
+                List<JMethod> nextLevel = new ArrayList<>();
+                for (int i = 0; i < methods.size(); ++i) {
+                    callGraph.addReachableMethod(methods.get(i));
+                    for (Edge<Invoke, JMethod> edge : edges.get(i)) {
+                        callGraph.addEdge(edge);
+                        if (discovered.add(edge.getCallee())) {
+                            nextLevel.add(edge.getCallee());
+                        }
                     }
                 }
+                level = nextLevel;
             }
+        } finally {
+            pool.shutdown();
         }
         return callGraph;
     }
 
+    /**
+     * @return the call edges from the call sites in given method.
+     */
+    private List<Edge<Invoke, JMethod>> resolveEdgesOf(JMethod method) {
+        if (method.isAbstract()) {
+            return List.of();
+        }
+        List<Edge<Invoke, JMethod>> edges = new ArrayList<>();
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof Invoke callSite) {
+                CallKind kind = CallGraphs.getCallKind(callSite);
+                for (JMethod callee : resolve(callSite)) {
+                    edges.add(new Edge<>(kind, callSite, callee));
+                }
+            }
+        }
+        return edges;
+    }
+
     /**
      * Resolves call targets (callees) of a call site via CHA.
      */
@@ -82,9 +186,9 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
         Set<JMethod> T = new HashSet<>();
         JMethod m = callSite.getContainer();
-        System.out.println("[papaya]:"+"[method]"+m.toString()+"[callSite]"+callSite.toString());
+        logger.trace("[method] {} [callSite] {}", m, callSite);
         CallKind callkind = CallGraphs.getCallKind(callSite);
-        System.out.println("[papaya]:"+callkind.toString());
+        logger.trace("[callKind] {}", callkind);
         Subsignature subsignature = callSite.getMethodRef().getSubsignature();
         if (callkind.equals(CallKind.STATIC)) { // 注意这里添加的method获取路径有点绕 按道理来说Static和Special可以合并
             T.add(callSite.getMethodRef().getDeclaringClass().getDeclaredMethod(subsignature));
@@ -92,28 +196,27 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
             JMethod tmp = dispatch(callSite.getMethodRef().getDeclaringClass(),subsignature);
             if(tmp != null) T.add(tmp);
         }else if(callkind.equals(CallKind.VIRTUAL) || callkind.equals(CallKind.INTERFACE)){
-            Stack<JClass> toProcess = new Stack<>();
-            toProcess.push(callSite.getMethodRef().getDeclaringClass());
-            while (!toProcess.isEmpty()) {
-                JClass currentClass = toProcess.pop();
-                T.add(dispatch(currentClass, subsignature));
-                for (JClass childClass : hierarchy.getDirectSubclassesOf(currentClass)) {
-                    toProcess.push(childClass);
-                }
-                if(currentClass.isInterface()) {
-                    for (JClass childClass : hierarchy.getDirectSubinterfacesOf(currentClass)) {
-                        toProcess.push(childClass);
-                    }
-                    for (JClass childClass : hierarchy.getDirectImplementorsOf(currentClass)) {
-                        toProcess.push(childClass);
-                    }
-                }
-            }
+            return resolveTable.computeIfAbsent(
+                    new MethodKey(callSite.getMethodRef().getDeclaringClass(), subsignature),
+                    key -> resolveVirtual(key.jclass(), key.subsignature()));
         }
         T.remove(null);
         return T;
     }
 
+    /**
+     * @return the targets of virtual or interface calls to the method
+     * declared in given class with given subsignature.
+     */
+    private Set<JMethod> resolveVirtual(JClass declaringClass, Subsignature subsignature) {
+        Set<JMethod> T = new HashSet<>();
+        for (JClass subclass : hierarchy.getAllSubclassesOf(declaringClass)) {
+            T.add(dispatch(subclass, subsignature));
+        }
+        T.remove(null);
+        return Collections.unmodifiableSet(T);
+    }
+
     /**
      * Looks up the target method based on given class and method subsignature.
      *
@@ -122,13 +225,24 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      */
     private JMethod dispatch(JClass jclass, Subsignature subsignature) {
         // TODO - finish me
-        System.out.println("[papaya]:"+"[class]"+jclass.toString()+"[sign]"+subsignature.toString());
-        for (JMethod jmethod : jclass.getDeclaredMethods()) {
-            if (!jmethod.isAbstract() && jmethod.getSubsignature().equals(subsignature)) {
-                System.out.println("[papaya]:find method");
-                return jmethod;
-            }
+        MethodKey key = new MethodKey(jclass, subsignature);
+        JMethod cached = dispatchTable.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        logger.trace("[dispatch] {} [subsignature] {}", jclass, subsignature);
+        JMethod jmethod = jclass.getDeclaredMethod(subsignature);
+        if (jmethod != null && !jmethod.isAbstract()) {
+            logger.trace("[dispatch] found {}", jmethod);
+        } else {
+            jmethod = jclass.getSuperClass() != null ? dispatch(jclass.getSuperClass(), subsignature) : null;
         }
-        return jclass.getSuperClass() != null ? dispatch(jclass.getSuperClass(), subsignature) : null;
+        if (jmethod != null) {
+            dispatchTable.put(key, jmethod);
+        }
+        return jmethod;
+    }
+
+    private record MethodKey(JClass jclass, Subsignature subsignature) {
     }
 }
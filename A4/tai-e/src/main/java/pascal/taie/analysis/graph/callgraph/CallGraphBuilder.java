@@ -55,19 +55,77 @@ public class CallGraphBuilder extends ProgramAnalysis {
 
     @Override
     public CallGraph<Invoke, JMethod> analyze() {
+        CallGraph<Invoke, JMethod> callGraph = loadOrBuildCallGraph();
+        if (getOptions().getBooleanOrDefault("freeze", false)) {
+            long before = getUsedMemory();
+            FrozenCallGraph frozen = new FrozenCallGraph(callGraph);
+            callGraph = frozen; // let the original call graph be collected
+            long after = getUsedMemory();
+            logger.info("Froze call graph ({}), heap usage: {} MB -> {} MB",
+                    frozen.getStatistics(), before >> 20, after >> 20);
+        }
+        takeAction(callGraph);
+        return callGraph;
+    }
+
+    /**
+     * Loads the call graph from the cache directory specified by option
+     * "cache-dir" if a cache built on the same program exists; otherwise,
+     * builds the call graph and saves it to the cache directory.
+     */
+    private CallGraph<Invoke, JMethod> loadOrBuildCallGraph() {
+        String cacheDir = getOptions().getString("cache-dir");
+        if (cacheDir == null) {
+            return buildCallGraph();
+        }
+        CallGraphCache cache = new CallGraphCache(cacheDir, algorithm);
+        CallGraph<Invoke, JMethod> callGraph = cache.load();
+        if (callGraph != null) {
+            logger.info("Loaded call graph from {}: #reachable methods: {}, " +
+                            "#call graph edges: {}", cache.getFile(),
+                    callGraph.getNumberOfMethods(), callGraph.getNumberOfEdges());
+            return callGraph;
+        }
+        callGraph = buildCallGraph();
+        cache.save(callGraph);
+        return callGraph;
+    }
+
+    private CallGraph<Invoke, JMethod> buildCallGraph() {
         CGBuilder<Invoke, JMethod> builder;
         if (algorithm.equals("cha")) {
-            builder = new CHABuilder();
+            builder = new CHABuilder(getParallelism());
+        } else if (algorithm.equals("rta")) {
+            builder = new RTABuilder();
         } else {
             throw new ConfigException("Unknown call graph building algorithm: " + algorithm);
         }
         ClassHierarchyImpl.setCheckCHA(true);
         CallGraph<Invoke, JMethod> callGraph = builder.build();
         ClassHierarchyImpl.setCheckCHA(false);
-        takeAction(callGraph);
+        logger.info("{} call graph: #reachable methods: {}, #call graph edges: {}",
+                algorithm, callGraph.getNumberOfMethods(), callGraph.getNumberOfEdges());
         return callGraph;
     }
 
+    /**
+     * @return the heap usage after a garbage collection is requested,
+     * which is an approximation of the size of live objects.
+     */
+    private static long getUsedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return the number of threads for building call graph,
+     * or 0 if it is not specified.
+     */
+    private int getParallelism() {
+        return getOptions().get("parallelism") instanceof Integer n ? n : 0;
+    }
+
     private void takeAction(CallGraph<Invoke, JMethod> callGraph) {
         String action = getOptions().getString("action");
         if (action == null) {
@@ -0,0 +1,296 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.Options;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.StringReps;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Binary on-disk cache of call graphs, which allows a call graph built
+ * by one run to be reused by later runs on the same program.
+ * <p>
+ * A cache file is named after a key computed from the contents of the
+ * class path and the options that affect call graph construction,
+ * so that any change to the analyzed program leads to a cache miss.
+ * The file consists of a header, a table of method signatures (indexed
+ * by their positions), the indexes of entry methods, and the call edges
+ * encoded as (container, call-site index, kind, callee) tuples.
+ */
+class CallGraphCache {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphCache.class);
+
+    /**
+     * Magic number of cache files, i.e., "TCGC".
+     */
+    private static final int MAGIC = 0x54434743;
+
+    /**
+     * Version of the file format, should be increased whenever
+     * the format is changed.
+     */
+    private static final int VERSION = 1;
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    private final Path file;
+
+    CallGraphCache(String cacheDir, String algorithm) {
+        this.file = Path.of(cacheDir,
+                "cg-" + computeKey(World.get().getOptions(), algorithm) + ".bin");
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Loads the call graph from the cache file.
+     *
+     * @return the cached call graph, or null if the cache file does not
+     * exist or does not match the current program.
+     */
+    @Nullable
+    CallGraph<Invoke, JMethod> load() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load call graph from {}: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    @Nullable
+    private static CallGraph<Invoke, JMethod> read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            logger.warn("Ignored call graph cache in unknown format");
+            return null;
+        }
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        JMethod[] methods = new JMethod[buffer.getInt()];
+        for (int i = 0; i < methods.length; ++i) {
+            String signature = readString(buffer);
+            JMethod method = resolveMethod(hierarchy, signature);
+            if (method == null) {
+                logger.warn("Ignored stale call graph cache, " +
+                        "method {} is not found", signature);
+                return null;
+            }
+            methods[i] = method;
+            callGraph.addReachableMethod(method);
+        }
+        int nEntries = buffer.getInt();
+        for (int i = 0; i < nEntries; ++i) {
+            callGraph.addEntryMethod(methods[buffer.getInt()]);
+        }
+        int nEdges = buffer.getInt();
+        for (int i = 0; i < nEdges; ++i) {
+            JMethod container = methods[buffer.getInt()];
+            int index = buffer.getInt();
+            CallKind kind = KINDS[buffer.get()];
+            JMethod callee = methods[buffer.getInt()];
+            List<Stmt> stmts = container.getIR().getStmts();
+            if (index >= stmts.size() ||
+                    !(stmts.get(index) instanceof Invoke callSite)) {
+                logger.warn("Ignored stale call graph cache, " +
+                        "call site {} of {} is not found", index, container);
+                return null;
+            }
+            callGraph.addEdge(new Edge<>(kind, callSite, callee));
+        }
+        return callGraph;
+    }
+
+    @Nullable
+    private static JMethod resolveMethod(ClassHierarchy hierarchy, String signature) {
+        String className = StringReps.getClassNameOf(signature);
+        JClass jclass = hierarchy.getClass(className);
+        if (jclass == null) {
+            jclass = hierarchy.getJREClass(className);
+        }
+        return jclass == null ? null : jclass.getDeclaredMethod(
+                Subsignature.get(StringReps.getSubsignatureOf(signature)));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Saves the given call graph to the cache file. The file is written
+     * to a temporary file first and then moved to its final place,
+     * so that an interrupted run does not leave a truncated cache.
+     */
+    void save(CallGraph<Invoke, JMethod> callGraph) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "cg-", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                write(callGraph, out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved call graph to {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to save call graph to {}: {}", file, e.toString());
+        }
+    }
+
+    private static void write(CallGraph<Invoke, JMethod> callGraph,
+                              DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        Map<JMethod, Integer> ids = Maps.newMap(callGraph.getNumberOfMethods());
+        out.writeInt(callGraph.getNumberOfMethods());
+        for (JMethod method : (Iterable<JMethod>) callGraph.reachableMethods()::iterator) {
+            ids.put(method, ids.size());
+            writeString(out, method.getSignature());
+        }
+        List<JMethod> entries = callGraph.entryMethods().toList();
+        out.writeInt(entries.size());
+        for (JMethod entry : entries) {
+            out.writeInt(ids.get(entry));
+        }
+        out.writeInt(callGraph.getNumberOfEdges());
+        for (Edge<Invoke, JMethod> edge :
+                (Iterable<Edge<Invoke, JMethod>>) callGraph.edges()::iterator) {
+            Invoke callSite = edge.getCallSite();
+            out.writeInt(ids.get(callGraph.getContainerOf(callSite)));
+            out.writeInt(callSite.getIndex());
+            out.writeByte(edge.getKind().ordinal());
+            out.writeInt(ids.get(edge.getCallee()));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s)
+            throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Computes the cache key, i.e., a digest of the options that affect
+     * call graph construction and the contents of all class path entries.
+     */
+    private static String computeKey(Options options, String algorithm) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        update(digest, "version=" + VERSION);
+        update(digest, "algorithm=" + algorithm);
+        update(digest, "main-class=" + options.getMainClass());
+        update(digest, "java=" + options.getJavaVersion());
+        update(digest, "prepend-JVM=" + options.isPrependJVM());
+        String classPath = options.getClassPath();
+        if (classPath != null) {
+            String[] entries = classPath.split(File.pathSeparator);
+            Arrays.sort(entries);
+            for (String entry : entries) {
+                update(digest, "class-path=" + entry);
+                digestPath(digest, Path.of(entry));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    private static void digestPath(MessageDigest digest, Path path) {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                files.filter(Files::isRegularFile)
+                        .sorted()
+                        .forEach(f -> {
+                            update(digest, path.relativize(f).toString());
+                            digestFile(digest, f);
+                        });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else if (Files.isRegularFile(path)) {
+            digestFile(digest, path);
+        }
+    }
+
+    private static void digestFile(MessageDigest digest, Path file) {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new DigestInputStream(
+                Files.newInputStream(file), digest)) {
+            while (in.read(buffer) != -1) {
+                // the content is consumed by the digest stream
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
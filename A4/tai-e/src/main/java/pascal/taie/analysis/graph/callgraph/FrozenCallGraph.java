@@ -0,0 +1,287 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.RangeSet;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable call graph in compressed sparse row (CSR) layout.
+ * <p>
+ * Methods and call sites are numbered, and the call sites in each
+ * method, the callees of each call site and the callers of each method
+ * are stored as ranges of int arrays, instead of multimaps of
+ * {@link Edge} objects. The edges are created on demand when queried.
+ * <p>
+ * A frozen call graph is built from a finished call graph,
+ * see {@link #FrozenCallGraph(CallGraph)}. The multimaps inherited from
+ * {@link AbstractCallGraph} stay empty; only the graph views built
+ * on top of the {@link CallGraph} queries are reused.
+ */
+public class FrozenCallGraph extends AbstractCallGraph<Invoke, JMethod> {
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    /**
+     * Methods by their numbers. The reachable methods come first,
+     * followed by the callees that are not reachable (if any).
+     */
+    private final JMethod[] methods;
+
+    private final Map<JMethod, Integer> methodIds;
+
+    private final int nReachableMethods;
+
+    private final int[] entryMethodIds;
+
+    /**
+     * Call sites by their numbers, grouped by their containers.
+     * The call sites in the i-th method are in
+     * [callSiteStarts[i], callSiteStarts[i + 1]).
+     */
+    private final Invoke[] callSites;
+
+    private final Map<Invoke, Integer> callSiteIds;
+
+    private final int[] callSiteStarts;
+
+    /**
+     * Container method of each call site, -1 if unknown.
+     */
+    private final int[] containers;
+
+    /**
+     * The callees of the i-th call site are
+     * callees[calleeStarts[i], calleeStarts[i + 1]).
+     */
+    private final int[] calleeStarts;
+
+    private final int[] callees;
+
+    /**
+     * Call kinds of out edges, parallel to {@link #callees}.
+     */
+    private final byte[] kinds;
+
+    /**
+     * The callers (call sites) of the i-th method are
+     * callers[callerStarts[i], callerStarts[i + 1]).
+     */
+    private final int[] callerStarts;
+
+    private final int[] callers;
+
+    public FrozenCallGraph(CallGraph<Invoke, JMethod> callGraph) {
+        // number methods
+        methodIds = Maps.newMap(callGraph.getNumberOfMethods());
+        callGraph.reachableMethods().forEach(m -> methodIds.put(m, methodIds.size()));
+        nReachableMethods = methodIds.size();
+        callGraph.edges().forEach(e -> methodIds.putIfAbsent(e.getCallee(), methodIds.size()));
+        methods = new JMethod[methodIds.size()];
+        methodIds.forEach((m, id) -> methods[id] = m);
+        entryMethodIds = callGraph.entryMethods()
+                .mapToInt(methodIds::get)
+                .toArray();
+        // number call sites, grouped by containers
+        callSiteIds = Maps.newMap();
+        callSiteStarts = new int[nReachableMethods + 1];
+        for (int i = 0; i < nReachableMethods; ++i) {
+            callSiteStarts[i] = callSiteIds.size();
+            callGraph.callSitesIn(methods[i])
+                    .forEach(cs -> callSiteIds.putIfAbsent(cs, callSiteIds.size()));
+        }
+        callSiteStarts[nReachableMethods] = callSiteIds.size();
+        // call sites whose containers are not reachable, if any
+        callGraph.edges().forEach(e ->
+                callSiteIds.putIfAbsent(e.getCallSite(), callSiteIds.size()));
+        int nCallSites = callSiteIds.size();
+        callSites = new Invoke[nCallSites];
+        callSiteIds.forEach((cs, id) -> callSites[id] = cs);
+        containers = new int[nCallSites];
+        for (int i = 0; i < nCallSites; ++i) {
+            Integer container = methodIds.get(callGraph.getContainerOf(callSites[i]));
+            containers[i] = container != null ? container : -1;
+        }
+        // out edges
+        int nEdges = callGraph.getNumberOfEdges();
+        calleeStarts = new int[nCallSites + 1];
+        callees = new int[nEdges];
+        kinds = new byte[nEdges];
+        int[] inDegrees = new int[methods.length];
+        int e = 0;
+        for (int i = 0; i < nCallSites; ++i) {
+            calleeStarts[i] = e;
+            for (Edge<Invoke, JMethod> edge : callGraph.edgesOutOf(callSites[i]).toList()) {
+                int callee = methodIds.get(edge.getCallee());
+                callees[e] = callee;
+                kinds[e] = (byte) edge.getKind().ordinal();
+                ++inDegrees[callee];
+                ++e;
+            }
+        }
+        calleeStarts[nCallSites] = e;
+        // in edges, by counting sort of out edges on callees
+        callerStarts = new int[methods.length + 1];
+        for (int i = 0; i < methods.length; ++i) {
+            callerStarts[i + 1] = callerStarts[i] + inDegrees[i];
+        }
+        callers = new int[e];
+        int[] next = Arrays.copyOf(callerStarts, methods.length);
+        for (int i = 0; i < nCallSites; ++i) {
+            for (int j = calleeStarts[i]; j < calleeStarts[i + 1]; ++j) {
+                callers[next[callees[j]]++] = i;
+            }
+        }
+    }
+
+    private int getMethodId(JMethod method) {
+        Integer id = methodIds.get(method);
+        return id != null ? id : -1;
+    }
+
+    private int getCallSiteId(Invoke callSite) {
+        Integer id = callSiteIds.get(callSite);
+        return id != null ? id : -1;
+    }
+
+    @Override
+    public Set<Invoke> getCallersOf(JMethod callee) {
+        int id = getMethodId(callee);
+        return id < 0 ? Set.of() : new RangeSet<>(callers,
+                callerStarts[id], callerStarts[id + 1], i -> callSites[i]);
+    }
+
+    @Override
+    public Set<JMethod> getCalleesOf(Invoke callSite) {
+        int id = getCallSiteId(callSite);
+        return id < 0 ? Set.of() : new RangeSet<>(callees,
+                calleeStarts[id], calleeStarts[id + 1], i -> methods[i]);
+    }
+
+    @Override
+    public JMethod getContainerOf(Invoke callSite) {
+        int id = getCallSiteId(callSite);
+        return id < 0 || containers[id] < 0 ? null : methods[containers[id]];
+    }
+
+    @Override
+    public Set<Invoke> getCallSitesIn(JMethod method) {
+        int id = getMethodId(method);
+        return id < 0 || id >= nReachableMethods ? Set.of() : new RangeSet<>(null,
+                callSiteStarts[id], callSiteStarts[id + 1], i -> callSites[i]);
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edgesOutOf(Invoke callSite) {
+        int id = getCallSiteId(callSite);
+        return id < 0 ? Stream.of() : edgesOutOf(id);
+    }
+
+    private Stream<Edge<Invoke, JMethod>> edgesOutOf(int callSite) {
+        return IntStream.range(calleeStarts[callSite], calleeStarts[callSite + 1])
+                .mapToObj(e -> new Edge<>(KINDS[kinds[e]],
+                        callSites[callSite], methods[callees[e]]));
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edgesInTo(JMethod method) {
+        int id = getMethodId(method);
+        if (id < 0) {
+            return Stream.of();
+        }
+        return IntStream.range(callerStarts[id], callerStarts[id + 1])
+                .mapToObj(i -> callers[i])
+                .flatMap(cs -> edgesOutOf(cs).filter(e -> e.getCallee() == method));
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edges() {
+        return IntStream.range(0, callSites.length)
+                .boxed()
+                .flatMap(this::edgesOutOf);
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return callees.length;
+    }
+
+    @Override
+    public Stream<JMethod> entryMethods() {
+        return Arrays.stream(entryMethodIds).mapToObj(i -> methods[i]);
+    }
+
+    @Override
+    public Stream<JMethod> reachableMethods() {
+        return Arrays.stream(methods, 0, nReachableMethods);
+    }
+
+    @Override
+    public int getNumberOfMethods() {
+        return nReachableMethods;
+    }
+
+    @Override
+    public boolean contains(JMethod method) {
+        int id = getMethodId(method);
+        return 0 <= id && id < nReachableMethods;
+    }
+
+    @Override
+    public Set<JMethod> getNodes() {
+        return new RangeSet<>(null, 0, nReachableMethods, i -> methods[i]);
+    }
+
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public Set<JMethod> getResult(Stmt stmt) {
+        return getCalleesOf((Invoke) stmt);
+    }
+
+    /**
+     * @return a string that compares the sizes of the CSR arrays
+     * with the number of objects they replace.
+     */
+    String getStatistics() {
+        long ints = (long) callSiteStarts.length + containers.length +
+                calleeStarts.length + callees.length +
+                callerStarts.length + callers.length + entryMethodIds.length;
+        return String.format("#methods: %d, #call sites: %d, #edges: %d, " +
+                        "CSR arrays: %d KB",
+                nReachableMethods, callSites.length, callees.length,
+                (ints * Integer.BYTES + kinds.length) / 1024);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Implementation of Rapid Type Analysis (RTA).
+ * <p>
+ * Unlike CHA, which dispatches a virtual call on every subtype of
+ * the declaring class of the callee, RTA only dispatches it on the classes
+ * that are instantiated (by {@link New} statements) in reachable methods.
+ * When a new class is instantiated, the virtual call sites seen so far
+ * are resolved on it incrementally.
+ */
+class RTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private ClassHierarchy hierarchy;
+
+    private DefaultCallGraph callGraph;
+
+    private Queue<JMethod> workList;
+
+    /**
+     * Classes instantiated in reachable methods.
+     */
+    private Set<JClass> instantiatedClasses;
+
+    /**
+     * Virtual and interface call sites in reachable methods, grouped by
+     * the declaring class and subsignature of their method references.
+     */
+    private TwoKeyMap<JClass, Subsignature, Set<Invoke>> virtualCallSites;
+
+    /**
+     * Caches the results of {@link #dispatch(JClass, Subsignature)}.
+     * The failed lookups are not cached, as TwoKeyMap does not permit null values.
+     */
+    private TwoKeyMap<JClass, Subsignature, JMethod> dispatchTable;
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        callGraph = new DefaultCallGraph();
+        workList = new ArrayDeque<>();
+        instantiatedClasses = Sets.newSet();
+        virtualCallSites = Maps.newTwoKeyMap();
+        dispatchTable = Maps.newTwoKeyMap();
+        JMethod entry = World.get().getMainMethod();
+        callGraph.addEntryMethod(entry);
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method)) {
+                processNewMethod(method);
+            }
+        }
+        return callGraph;
+    }
+
+    private void processNewMethod(JMethod method) {
+        if (method.isAbstract()) {
+            return;
+        }
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof New newStmt &&
+                    newStmt.getRValue() instanceof NewInstance newInstance) {
+                addInstantiatedClass(newInstance.getType().getJClass());
+            }
+        }
+        callGraph.callSitesIn(method).forEach(this::processCallSite);
+    }
+
+    private void processCallSite(Invoke callSite) {
+        MethodRef methodRef = callSite.getMethodRef();
+        JClass declaringClass = methodRef.getDeclaringClass();
+        Subsignature subsignature = methodRef.getSubsignature();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC -> addEdge(callSite,
+                    declaringClass.getDeclaredMethod(subsignature));
+            case SPECIAL -> addEdge(callSite,
+                    dispatch(declaringClass, subsignature));
+            case VIRTUAL, INTERFACE -> {
+                Set<Invoke> callSites = virtualCallSites.computeIfAbsent(
+                        declaringClass, subsignature, (c, s) -> Sets.newSet());
+                if (callSites.add(callSite)) {
+                    for (JClass jclass : instantiatedClasses) {
+                        if (hierarchy.isSubclass(declaringClass, jclass)) {
+                            addEdge(callSite, dispatch(jclass, subsignature));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the virtual call sites seen so far on a newly
+     * instantiated class.
+     */
+    private void addInstantiatedClass(JClass jclass) {
+        if (jclass == null || !instantiatedClasses.add(jclass)) {
+            return;
+        }
+        virtualCallSites.entrySet().forEach(entry -> {
+            if (hierarchy.isSubclass(entry.key1(), jclass)) {
+                JMethod callee = dispatch(jclass, entry.key2());
+                entry.value().forEach(callSite -> addEdge(callSite, callee));
+            }
+        });
+    }
+
+    private void addEdge(Invoke callSite, JMethod callee) {
+        if (callee != null && callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(callSite), callSite, callee))) {
+            workList.add(callee);
+        }
+    }
+
+    /**
+     * Looks up the target method based on given class and method subsignature.
+     *
+     * @return the dispatched target method, or null if no satisfying method
+     * can be found.
+     */
+    private JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        JMethod cached = dispatchTable.get(jclass, subsignature);
+        if (cached != null) {
+            return cached;
+        }
+        JMethod method = jclass.getDeclaredMethod(subsignature);
+        if (method == null || method.isAbstract()) {
+            JClass superClass = jclass.getSuperClass();
+            method = superClass != null ? dispatch(superClass, subsignature) : null;
+        }
+        if (method != null) {
+            dispatchTable.put(jclass, subsignature, method);
+        }
+        return method;
+    }
+}
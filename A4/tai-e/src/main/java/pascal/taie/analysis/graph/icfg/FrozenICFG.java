@@ -0,0 +1,442 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.RangeSet;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Immutable snapshot of an ICFG in compressed sparse row (CSR) layout.
+ * <p>
+ * Nodes are numbered densely, with the nodes of each method numbered
+ * consecutively. Edges are numbered so that the out edges of each node
+ * form a range of edge ids, grouped by {@link Kind}; the in edges of each
+ * node are stored as a range of an int array of edge ids, also grouped
+ * by {@link Kind}. Solvers can iterate the edges of a node by the ranges,
+ * e.g.,
+ * <pre>
+ * for (int e = icfg.getOutEdgeStart(n); e < icfg.getOutEdgeEnd(n); ++e) {
+ *     int target = icfg.getTarget(e);
+ *     ...
+ * }
+ * </pre>
+ * which involves neither hashing nor allocation.
+ * The {@link ICFG} queries are also supported, as views of the arrays.
+ */
+public class FrozenICFG<Method, Node> implements ICFG<Method, Node> {
+
+    /**
+     * Kinds of ICFG edges.
+     */
+    public enum Kind {
+
+        NORMAL, CALL_TO_RETURN, CALL, RETURN;
+
+        private static Kind of(ICFGEdge<?> edge) {
+            if (edge instanceof NormalEdge) {
+                return NORMAL;
+            } else if (edge instanceof CallToReturnEdge) {
+                return CALL_TO_RETURN;
+            } else if (edge instanceof CallEdge) {
+                return CALL;
+            } else {
+                return RETURN;
+            }
+        }
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private static final int K = KINDS.length;
+
+    private final Object[] methods;
+
+    private final Map<Method, Integer> methodIds;
+
+    private final int[] entryMethodIds;
+
+    /**
+     * The nodes of the i-th method are in
+     * [methodNodeStarts[i], methodNodeStarts[i + 1]).
+     */
+    private final int[] methodNodeStarts;
+
+    private final int[] entries;
+
+    private final int[] exits;
+
+    private final Object[] nodes;
+
+    private final Map<Node, Integer> nodeIds;
+
+    /**
+     * Containing method of each node.
+     */
+    private final int[] containers;
+
+    private final BitSet callSites = new BitSet();
+
+    private final ICFGEdge<Node>[] edges;
+
+    private final int[] sources;
+
+    private final int[] targets;
+
+    private final byte[] kinds;
+
+    /**
+     * The out edges of node n of kind k are the edges whose ids are in
+     * [outStarts[n * K + k], outStarts[n * K + k + 1]).
+     */
+    private final int[] outStarts;
+
+    /**
+     * The in edges of node n of kind k are the edges whose ids are
+     * inEdges[inStarts[n * K + k], inStarts[n * K + k + 1]).
+     */
+    private final int[] inStarts;
+
+    private final int[] inEdges;
+
+    @SuppressWarnings("unchecked")
+    public FrozenICFG(ICFG<Method, Node> icfg) {
+        // number methods and nodes, grouped by methods
+        methodIds = Maps.newMap();
+        Map<Method, List<Node>> nodesOf = Maps.newMap();
+        for (Node node : icfg) {
+            Method method = icfg.getContainingMethodOf(node);
+            nodesOf.computeIfAbsent(method, m -> {
+                methodIds.put(m, methodIds.size());
+                return new ArrayList<>();
+            }).add(node);
+        }
+        int nMethods = methodIds.size();
+        methods = new Object[nMethods];
+        methodIds.forEach((m, id) -> methods[id] = m);
+        entryMethodIds = icfg.entryMethods()
+                .mapToInt(methodIds::get)
+                .toArray();
+        nodeIds = Maps.newMap(icfg.getNumberOfNodes());
+        methodNodeStarts = new int[nMethods + 1];
+        for (int i = 0; i < nMethods; ++i) {
+            methodNodeStarts[i] = nodeIds.size();
+            nodesOf.get((Method) methods[i])
+                    .forEach(n -> nodeIds.put(n, nodeIds.size()));
+        }
+        int nNodes = nodeIds.size();
+        methodNodeStarts[nMethods] = nNodes;
+        nodes = new Object[nNodes];
+        nodeIds.forEach((n, id) -> nodes[id] = n);
+        containers = new int[nNodes];
+        entries = new int[nMethods];
+        exits = new int[nMethods];
+        for (int i = 0; i < nMethods; ++i) {
+            Arrays.fill(containers, methodNodeStarts[i], methodNodeStarts[i + 1], i);
+            entries[i] = nodeIds.get(icfg.getEntryOf((Method) methods[i]));
+            exits[i] = nodeIds.get(icfg.getExitOf((Method) methods[i]));
+        }
+        // out edges, grouped by sources and kinds
+        List<ICFGEdge<Node>> edgeList = new ArrayList<>();
+        outStarts = new int[nNodes * K + 1];
+        for (int n = 0; n < nNodes; ++n) {
+            Node node = getNode(n);
+            if (icfg.isCallSite(node)) {
+                callSites.set(n);
+            }
+            Set<ICFGEdge<Node>> outEdges = icfg.getOutEdgesOf(node);
+            for (int k = 0; k < K; ++k) {
+                outStarts[n * K + k] = edgeList.size();
+                for (ICFGEdge<Node> edge : outEdges) {
+                    if (Kind.of(edge).ordinal() == k) {
+                        edgeList.add(edge);
+                    }
+                }
+            }
+        }
+        int nEdges = edgeList.size();
+        outStarts[nNodes * K] = nEdges;
+        edges = edgeList.toArray((ICFGEdge<Node>[]) new ICFGEdge<?>[0]);
+        sources = new int[nEdges];
+        targets = new int[nEdges];
+        kinds = new byte[nEdges];
+        int[] inDegrees = new int[nNodes * K];
+        for (int e = 0; e < nEdges; ++e) {
+            sources[e] = nodeIds.get(edges[e].getSource());
+            targets[e] = nodeIds.get(edges[e].getTarget());
+            kinds[e] = (byte) Kind.of(edges[e]).ordinal();
+            ++inDegrees[targets[e] * K + kinds[e]];
+        }
+        // in edges, by counting sort of edges on (target, kind)
+        inStarts = new int[nNodes * K + 1];
+        for (int i = 0; i < inDegrees.length; ++i) {
+            inStarts[i + 1] = inStarts[i] + inDegrees[i];
+        }
+        inEdges = new int[nEdges];
+        int[] next = Arrays.copyOf(inStarts, inDegrees.length);
+        for (int e = 0; e < nEdges; ++e) {
+            inEdges[next[targets[e] * K + kinds[e]]++] = e;
+        }
+    }
+
+    // ---------- index-based queries ----------
+
+    /**
+     * @return the id of given node, or -1 if the node is not in this ICFG.
+     */
+    public int getIndex(Node node) {
+        Integer id = nodeIds.get(node);
+        return id != null ? id : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Node getNode(int node) {
+        return (Node) nodes[node];
+    }
+
+    public int getNumberOfEdges() {
+        return edges.length;
+    }
+
+    public ICFGEdge<Node> getEdge(int edge) {
+        return edges[edge];
+    }
+
+    public int getSource(int edge) {
+        return sources[edge];
+    }
+
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    public Kind getKind(int edge) {
+        return KINDS[kinds[edge]];
+    }
+
+    /**
+     * @return the id of the first out edge of given node.
+     * The ids of the out edges of a node are consecutive.
+     */
+    public int getOutEdgeStart(int node) {
+        return outStarts[node * K];
+    }
+
+    public int getOutEdgeEnd(int node) {
+        return outStarts[(node + 1) * K];
+    }
+
+    public int getOutEdgeStart(int node, Kind kind) {
+        return outStarts[node * K + kind.ordinal()];
+    }
+
+    public int getOutEdgeEnd(int node, Kind kind) {
+        return outStarts[node * K + kind.ordinal() + 1];
+    }
+
+    /**
+     * @return the start (inclusive) of the range of the in edges
+     * of given node, see {@link #getInEdge(int)}.
+     */
+    public int getInEdgeStart(int node) {
+        return inStarts[node * K];
+    }
+
+    public int getInEdgeEnd(int node) {
+        return inStarts[(node + 1) * K];
+    }
+
+    public int getInEdgeStart(int node, Kind kind) {
+        return inStarts[node * K + kind.ordinal()];
+    }
+
+    public int getInEdgeEnd(int node, Kind kind) {
+        return inStarts[node * K + kind.ordinal() + 1];
+    }
+
+    /**
+     * @return the id of the in edge at position i of the in-edge ranges.
+     */
+    public int getInEdge(int i) {
+        return inEdges[i];
+    }
+
+    /**
+     * @return the ids of the entry nodes of the entry methods.
+     */
+    public int[] getEntryNodeIndexes() {
+        return Arrays.stream(entryMethodIds).map(m -> entries[m]).toArray();
+    }
+
+    // ---------- ICFG queries ----------
+
+    @SuppressWarnings("unchecked")
+    private Method getMethod(int method) {
+        return (Method) methods[method];
+    }
+
+    private int getMethodIndex(Method method) {
+        Integer id = methodIds.get(method);
+        return id != null ? id : -1;
+    }
+
+    @Override
+    public Stream<Method> entryMethods() {
+        return Arrays.stream(entryMethodIds).mapToObj(this::getMethod);
+    }
+
+    @Override
+    public Set<ICFGEdge<Node>> getInEdgesOf(Node node) {
+        int n = getIndex(node);
+        return n < 0 ? Set.of() : new RangeSet<>(inEdges,
+                getInEdgeStart(n), getInEdgeEnd(n), e -> edges[e]);
+    }
+
+    @Override
+    public Set<ICFGEdge<Node>> getOutEdgesOf(Node node) {
+        int n = getIndex(node);
+        return n < 0 ? Set.of() : new RangeSet<>(null,
+                getOutEdgeStart(n), getOutEdgeEnd(n), e -> edges[e]);
+    }
+
+    @Override
+    public Set<Method> getCalleesOf(Node callSite) {
+        int n = getIndex(callSite);
+        return n < 0 ? Set.of() : new RangeSet<>(null,
+                getOutEdgeStart(n, Kind.CALL), getOutEdgeEnd(n, Kind.CALL),
+                e -> getMethod(containers[targets[e]]));
+    }
+
+    @Override
+    public Set<Node> getReturnSitesOf(Node callSite) {
+        int n = getIndex(callSite);
+        if (n < 0) {
+            return Set.of();
+        }
+        // a call site may have multiple edges to the same return site
+        Set<Node> retSites = Sets.newHybridSet();
+        for (int e = getOutEdgeStart(n, Kind.CALL_TO_RETURN);
+             e < getOutEdgeEnd(n, Kind.CALL_TO_RETURN); ++e) {
+            retSites.add(getNode(targets[e]));
+        }
+        return Collections.unmodifiableSet(retSites);
+    }
+
+    @Override
+    public Node getEntryOf(Method method) {
+        int m = getMethodIndex(method);
+        return m < 0 ? null : getNode(entries[m]);
+    }
+
+    @Override
+    public Node getExitOf(Method method) {
+        int m = getMethodIndex(method);
+        return m < 0 ? null : getNode(exits[m]);
+    }
+
+    @Override
+    public Set<Node> getCallersOf(Method method) {
+        int m = getMethodIndex(method);
+        if (m < 0) {
+            return Set.of();
+        }
+        int entry = entries[m];
+        return new RangeSet<>(inEdges, getInEdgeStart(entry, Kind.CALL),
+                getInEdgeEnd(entry, Kind.CALL), e -> getNode(sources[e]));
+    }
+
+    @Override
+    public Method getContainingMethodOf(Node node) {
+        int n = getIndex(node);
+        return n < 0 ? null : getMethod(containers[n]);
+    }
+
+    @Override
+    public boolean isCallSite(Node node) {
+        int n = getIndex(node);
+        return n >= 0 && callSites.get(n);
+    }
+
+    @Override
+    public boolean hasNode(Node node) {
+        return nodeIds.containsKey(node);
+    }
+
+    @Override
+    public boolean hasEdge(Node source, Node target) {
+        int s = getIndex(source), t = getIndex(target);
+        if (s >= 0 && t >= 0) {
+            for (int e = getOutEdgeStart(s); e < getOutEdgeEnd(s); ++e) {
+                if (targets[e] == t) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<Node> getPredsOf(Node node) {
+        int n = getIndex(node);
+        if (n < 0) {
+            return Set.of();
+        }
+        Set<Node> preds = Sets.newHybridSet();
+        for (int i = getInEdgeStart(n); i < getInEdgeEnd(n); ++i) {
+            preds.add(getNode(sources[inEdges[i]]));
+        }
+        return Collections.unmodifiableSet(preds);
+    }
+
+    @Override
+    public Set<Node> getSuccsOf(Node node) {
+        int n = getIndex(node);
+        if (n < 0) {
+            return Set.of();
+        }
+        Set<Node> succs = Sets.newHybridSet();
+        for (int e = getOutEdgeStart(n); e < getOutEdgeEnd(n); ++e) {
+            succs.add(getNode(targets[e]));
+        }
+        return Collections.unmodifiableSet(succs);
+    }
+
+    @Override
+    public Set<Node> getNodes() {
+        return new RangeSet<>(null, 0, nodes.length, this::getNode);
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return nodes.length;
+    }
+}
@@ -75,6 +75,18 @@ public interface ClassHierarchy {
      */
     Collection<JClass> getDirectSubclassesOf(JClass jclass);
 
+    /**
+     * @return true if subclass is superclass itself, or a direct or indirect
+     * subclass, subinterface or implementor of superclass.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass);
+
+    /**
+     * @return all direct and indirect subclasses, subinterfaces and
+     * implementors of given class or interface, including itself.
+     */
+    Collection<JClass> getAllSubclassesOf(JClass jclass);
+
     /**
      * Obtains a JRE class by it name.
      *
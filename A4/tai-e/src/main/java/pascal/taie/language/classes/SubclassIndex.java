@@ -0,0 +1,192 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static pascal.taie.util.collection.Maps.newMap;
+
+/**
+ * Index of the transitive subtypes of the classes and interfaces
+ * in a class hierarchy.
+ * <p>
+ * The classes (excluding interfaces) form a forest by the superclass
+ * relation. Their numbers are assigned in pre-order of depth-first
+ * traversals of the forest. The subclasses of each class therefore take
+ * a contiguous range of numbers that starts with the number of the class
+ * itself. The interfaces are numbered after the classes, and the subtypes
+ * of each interface are held in a bit set over the numbers.
+ */
+class SubclassIndex {
+
+    /**
+     * The indexed classes and interfaces, by their numbers.
+     */
+    private final JClass[] classes;
+
+    private final Map<JClass, Integer> ids;
+
+    /**
+     * Number of classes, i.e., the number of the first interface.
+     */
+    private final int nClasses;
+
+    /**
+     * For each class, the number of its subclasses (including itself).
+     */
+    private final int[] sizes;
+
+    /**
+     * For each interface, its subtypes (including itself).
+     * Indexed by the number of the interface minus {@link #nClasses}.
+     */
+    private final BitSet[] subtypes;
+
+    @Nullable
+    private final JClass javaLangObject;
+
+    SubclassIndex(ClassHierarchy hierarchy) {
+        javaLangObject = hierarchy.getJREClass(ClassNames.OBJECT);
+        List<JClass> roots = new ArrayList<>();
+        List<JClass> interfaces = new ArrayList<>();
+        hierarchy.allClasses().forEach(c -> {
+            if (c.isInterface()) {
+                interfaces.add(c);
+            } else if (c.getSuperClass() == null) {
+                roots.add(c);
+            }
+        });
+        int n = (int) hierarchy.allClasses().count();
+        classes = new JClass[n];
+        ids = newMap(n);
+        sizes = new int[n];
+        int id = 0;
+        for (JClass root : roots) {
+            id = numberClasses(hierarchy, root, id);
+        }
+        nClasses = id;
+        for (JClass iface : interfaces) {
+            classes[id] = iface;
+            ids.put(iface, id++);
+        }
+        subtypes = new BitSet[interfaces.size()];
+        interfaces.forEach(iface -> computeSubtypes(hierarchy, iface));
+    }
+
+    /**
+     * Numbers given class and its subclasses in pre-order,
+     * starting from given number.
+     *
+     * @return the number next to the ones assigned.
+     */
+    private int numberClasses(ClassHierarchy hierarchy, JClass root, int start) {
+        // traverse iteratively, as class hierarchies can be deep
+        Deque<JClass> stack = new ArrayDeque<>();
+        stack.push(root);
+        int id = start;
+        while (!stack.isEmpty()) {
+            JClass jclass = stack.pop();
+            classes[id] = jclass;
+            ids.put(jclass, id++);
+            hierarchy.getDirectSubclassesOf(jclass).forEach(stack::push);
+        }
+        // in reverse pre-order, the subclasses come before their superclass
+        for (int i = id - 1; i >= start; --i) {
+            int size = 1;
+            for (JClass subclass : hierarchy.getDirectSubclassesOf(classes[i])) {
+                size += sizes[ids.get(subclass)];
+            }
+            sizes[i] = size;
+        }
+        return id;
+    }
+
+    private BitSet computeSubtypes(ClassHierarchy hierarchy, JClass iface) {
+        int id = ids.get(iface);
+        BitSet bits = subtypes[id - nClasses];
+        if (bits == null) {
+            bits = new BitSet();
+            bits.set(id);
+            subtypes[id - nClasses] = bits;
+            for (JClass subinterface : hierarchy.getDirectSubinterfacesOf(iface)) {
+                bits.or(computeSubtypes(hierarchy, subinterface));
+            }
+            for (JClass implementor : hierarchy.getDirectImplementorsOf(iface)) {
+                int implId = ids.get(implementor);
+                bits.set(implId, implId + sizes[implId]);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * @return true if subclass is superclass itself, or a direct or indirect
+     * subclass, subinterface or implementor of superclass.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass) {
+        if (superclass == subclass) {
+            return true;
+        }
+        Integer superId = ids.get(superclass);
+        Integer subId = ids.get(subclass);
+        if (superId == null || subId == null) {
+            return false;
+        }
+        if (superId < nClasses) {
+            if (subId >= nClasses) {
+                // interfaces are subtypes of java.lang.Object
+                return superclass == javaLangObject;
+            }
+            return superId <= subId && subId < superId + sizes[superId];
+        } else {
+            return subtypes[superId - nClasses].get(subId);
+        }
+    }
+
+    /**
+     * @return all subtypes of given class (including itself).
+     */
+    Collection<JClass> getAllSubclassesOf(JClass jclass) {
+        Integer id = ids.get(jclass);
+        if (id == null) {
+            return List.of(jclass);
+        }
+        if (id < nClasses) {
+            return Collections.unmodifiableList(
+                    Arrays.asList(classes).subList(id, id + sizes[id]));
+        } else {
+            return subtypes[id - nClasses].stream()
+                    .mapToObj(i -> classes[i])
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Unmodifiable set view of a range of an array of ids,
+ * where the ids are unique within the range. It lets the graphs
+ * stored in compressed sparse row form expose the neighbors of
+ * a node without copying them into a new set.
+ *
+ * @param <E> type of elements
+ */
+public class RangeSet<E> extends AbstractSet<E> {
+
+    /**
+     * The ids, or null if the ids are the positions in the range.
+     */
+    private final int[] ids;
+
+    private final int from;
+
+    private final int to;
+
+    private final IntFunction<E> mapper;
+
+    /**
+     * @param ids    the array of ids, or null if the ids are the positions
+     *               in the range.
+     * @param from   start of the range (inclusive).
+     * @param to     end of the range (exclusive).
+     * @param mapper maps an id to the element.
+     */
+    public RangeSet(int[] ids, int from, int to, IntFunction<E> mapper) {
+        this.ids = ids;
+        this.from = from;
+        this.to = to;
+        this.mapper = mapper;
+    }
+
+    private E get(int i) {
+        return mapper.apply(ids != null ? ids[i] : i);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public E next() {
+                if (next >= to) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+}
@@ -57,4 +57,18 @@ public class InterCPTest {
     public void testMultiIntArgs() {
         test("MultiIntArgs");
     }
+
+    @Test
+    public void testPersistentFact() {
+        Tests.test("Fibonacci", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;persistent-fact:true",
+                "-a", "cg=algorithm:cha");
+    }
+
+    @Test
+    public void testOptimizedSolver() {
+        Tests.test("Example", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;solver:optimized",
+                "-a", "cg=algorithm:cha");
+    }
 }
@@ -22,9 +22,17 @@
 
 package pascal.taie.analysis.graph.callgraph.cha;
 
+import org.junit.Assert;
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 public class CHATest {
     
     protected static void test(String main) {
@@ -50,4 +58,48 @@ public class CHATest {
     public void testAbstractMethod() {
         test("AbstractMethod");
     }
+
+    @Test
+    public void testParallelCHA() {
+        Tests.test("Interface", "src/test/resources/cha/", "cg",
+                "algorithm:cha;parallelism:4");
+    }
+
+    @Test
+    public void testFrozenCallGraph() {
+        Tests.test("VirtualCall", "src/test/resources/cha/", "cg",
+                "algorithm:cha;freeze:true");
+    }
+
+    @Test
+    public void testCallGraphCache() throws IOException {
+        Path cacheDir = Files.createTempDirectory("cg-cache");
+        try {
+            String opts = "algorithm:cha;cache-dir:" + cacheDir;
+            // the first run builds the call graph and saves it
+            Tests.test("VirtualCall", "src/test/resources/cha/", "cg", opts);
+            Path cacheFile;
+            try (Stream<Path> files = Files.list(cacheDir)) {
+                List<Path> cacheFiles = files.toList();
+                Assert.assertEquals(1, cacheFiles.size());
+                cacheFile = cacheFiles.get(0);
+            }
+            Assert.assertTrue(cacheFile.getFileName().toString().endsWith(".bin"));
+            // a rebuilt call graph would be saved again and thus
+            // refresh the modification time of the cache file
+            FileTime mark = FileTime.fromMillis(0);
+            Files.setLastModifiedTime(cacheFile, mark);
+            // the second run loads the call graph, which must still
+            // match the expected results of building it from scratch
+            Tests.test("VirtualCall", "src/test/resources/cha/", "cg", opts);
+            Assert.assertEquals(mark, Files.getLastModifiedTime(cacheFile));
+        } finally {
+            try (Stream<Path> files = Files.list(cacheDir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(cacheDir);
+        }
+    }
 }
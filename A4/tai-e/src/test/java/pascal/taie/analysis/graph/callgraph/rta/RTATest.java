@@ -0,0 +1,121 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph.rta;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that the call graph built by RTA is a subgraph of
+ * the one built by CHA.
+ */
+public class RTATest {
+
+    private static final String CLASS_PATH = "src/test/resources/cha/";
+
+    private static void test(String main) {
+        CallGraph<Invoke, JMethod> cha = buildCallGraph(main, "cha");
+        Set<String> chaMethods = methodsOf(cha);
+        Set<String> chaEdges = edgesOf(cha);
+        CallGraph<Invoke, JMethod> rta = buildCallGraph(main, "rta");
+        Assert.assertTrue(chaMethods.containsAll(methodsOf(rta)));
+        Assert.assertTrue(chaEdges.containsAll(edgesOf(rta)));
+    }
+
+    private static CallGraph<Invoke, JMethod> buildCallGraph(String main, String algorithm) {
+        Main.main(new String[]{
+                "-pp", "-cp", CLASS_PATH, "-m", main,
+                "-a", CallGraphBuilder.ID + "=algorithm:" + algorithm,
+        });
+        return World.get().getResult(CallGraphBuilder.ID);
+    }
+
+    // each run builds a new World, thus the call graphs are compared
+    // by the string representations of their methods and edges
+
+    private static Set<String> methodsOf(CallGraph<Invoke, JMethod> callGraph) {
+        return callGraph.reachableMethods()
+                .map(JMethod::toString)
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> edgesOf(CallGraph<Invoke, JMethod> callGraph) {
+        return callGraph.edges()
+                .map(e -> e.getCallSite().getContainer() + "/" +
+                        e.getCallSite().getIndex() + " -> " + e.getCallee())
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testStaticCall() {
+        test("StaticCall");
+    }
+
+    @Test
+    public void testVirtualCall() {
+        test("VirtualCall");
+    }
+
+    @Test
+    public void testInterface() {
+        test("Interface");
+    }
+
+    @Test
+    public void testAbstractMethod() {
+        test("AbstractMethod");
+    }
+
+    @Test
+    public void testUninstantiatedSubclass() {
+        // C and D override foo() but are never instantiated
+        Set<String> chaMethods = methodsOf(buildCallGraph("VirtualCall", "cha"));
+        Set<String> rtaMethods = methodsOf(buildCallGraph("VirtualCall", "rta"));
+        Assert.assertTrue(chaMethods.contains("<C: void foo()>"));
+        Assert.assertTrue(chaMethods.contains("<D: void foo()>"));
+        Assert.assertTrue(rtaMethods.contains("<A: void foo()>"));
+        Assert.assertFalse(rtaMethods.contains("<C: void foo()>"));
+        Assert.assertFalse(rtaMethods.contains("<D: void foo()>"));
+    }
+
+    @Test
+    public void testUninstantiatedImplementation() {
+        // only One is instantiated among the implementations of Number
+        Set<String> chaMethods = methodsOf(buildCallGraph("Interface", "cha"));
+        Set<String> rtaMethods = methodsOf(buildCallGraph("Interface", "rta"));
+        Assert.assertTrue(chaMethods.contains("<Zero: int get()>"));
+        Assert.assertTrue(chaMethods.contains("<Two: int get()>"));
+        Assert.assertTrue(rtaMethods.contains("<One: int get()>"));
+        Assert.assertFalse(rtaMethods.contains("<Zero: int get()>"));
+        Assert.assertFalse(rtaMethods.contains("<Two: int get()>"));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
+import pascal.taie.analysis.graph.icfg.FrozenICFG.Kind;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class FrozenICFGTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/inter";
+
+    /**
+     * Builds the ICFG of given test case, and checks that the queries
+     * on its frozen form agree with the ICFG.
+     */
+    private static void test(String inputClass) {
+        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha");
+        ICFG<JMethod, Stmt> icfg = World.get().getResult(ICFGBuilder.ID);
+        FrozenICFG<JMethod, Stmt> frozen = new FrozenICFG<>(icfg);
+        Assert.assertEquals(icfg.getNumberOfNodes(), frozen.getNumberOfNodes());
+        Assert.assertEquals(icfg.getNodes(), frozen.getNodes());
+        Assert.assertEquals(icfg.entryMethods().collect(Collectors.toSet()),
+                frozen.entryMethods().collect(Collectors.toSet()));
+        Assert.assertEquals(icfg.entryMethods().map(icfg::getEntryOf)
+                        .collect(Collectors.toSet()),
+                Arrays.stream(frozen.getEntryNodeIndexes())
+                        .mapToObj(frozen::getNode)
+                        .collect(Collectors.toSet()));
+        int nEdges = 0;
+        for (Stmt node : icfg) {
+            int n = frozen.getIndex(node);
+            Assert.assertSame(node, frozen.getNode(n));
+            Assert.assertTrue(frozen.hasNode(node));
+            JMethod method = icfg.getContainingMethodOf(node);
+            Assert.assertEquals(method, frozen.getContainingMethodOf(node));
+            Assert.assertEquals(icfg.getEntryOf(method), frozen.getEntryOf(method));
+            Assert.assertEquals(icfg.getExitOf(method), frozen.getExitOf(method));
+            Assert.assertEquals(icfg.getCallersOf(method), frozen.getCallersOf(method));
+            Assert.assertEquals(icfg.isCallSite(node), frozen.isCallSite(node));
+            if (icfg.isCallSite(node)) {
+                Assert.assertEquals(icfg.getCalleesOf(node), frozen.getCalleesOf(node));
+                Assert.assertEquals(icfg.getReturnSitesOf(node),
+                        frozen.getReturnSitesOf(node));
+            }
+            Assert.assertEquals(icfg.getPredsOf(node), frozen.getPredsOf(node));
+            Assert.assertEquals(icfg.getSuccsOf(node), frozen.getSuccsOf(node));
+            for (Stmt succ : icfg.getSuccsOf(node)) {
+                Assert.assertTrue(frozen.hasEdge(node, succ));
+            }
+            Assert.assertEquals(icfg.getOutEdgesOf(node), frozen.getOutEdgesOf(node));
+            Assert.assertEquals(icfg.getInEdgesOf(node), frozen.getInEdgesOf(node));
+            // the edge ranges of each kind hold exactly the edges of the kind
+            Assert.assertEquals(frozen.getOutEdgeStart(n),
+                    frozen.getOutEdgeStart(n, Kind.NORMAL));
+            Assert.assertEquals(frozen.getOutEdgeEnd(n),
+                    frozen.getOutEdgeEnd(n, Kind.RETURN));
+            Assert.assertEquals(frozen.getInEdgeStart(n),
+                    frozen.getInEdgeStart(n, Kind.NORMAL));
+            Assert.assertEquals(frozen.getInEdgeEnd(n),
+                    frozen.getInEdgeEnd(n, Kind.RETURN));
+            for (Kind kind : Kind.values()) {
+                Set<ICFGEdge<Stmt>> outEdges = Sets.newSet();
+                for (int e = frozen.getOutEdgeStart(n, kind);
+                     e < frozen.getOutEdgeEnd(n, kind); ++e) {
+                    Assert.assertEquals(n, frozen.getSource(e));
+                    Assert.assertEquals(kind, frozen.getKind(e));
+                    ICFGEdge<Stmt> edge = frozen.getEdge(e);
+                    Assert.assertEquals(frozen.getIndex(edge.getTarget()),
+                            frozen.getTarget(e));
+                    outEdges.add(edge);
+                }
+                Assert.assertEquals(edgesOf(icfg.getOutEdgesOf(node), kind), outEdges);
+                Set<ICFGEdge<Stmt>> inEdges = Sets.newSet();
+                for (int i = frozen.getInEdgeStart(n, kind);
+                     i < frozen.getInEdgeEnd(n, kind); ++i) {
+                    int e = frozen.getInEdge(i);
+                    Assert.assertEquals(n, frozen.getTarget(e));
+                    Assert.assertEquals(kind, frozen.getKind(e));
+                    inEdges.add(frozen.getEdge(e));
+                }
+                Assert.assertEquals(edgesOf(icfg.getInEdgesOf(node), kind), inEdges);
+            }
+            nEdges += icfg.getOutEdgesOf(node).size();
+        }
+        Assert.assertEquals(nEdges, frozen.getNumberOfEdges());
+    }
+
+    private static Set<ICFGEdge<Stmt>> edgesOf(Set<ICFGEdge<Stmt>> edges, Kind kind) {
+        return edges.stream()
+                .filter(edge -> kindOf(edge) == kind)
+                .collect(Collectors.toSet());
+    }
+
+    private static Kind kindOf(ICFGEdge<?> edge) {
+        if (edge instanceof NormalEdge) {
+            return Kind.NORMAL;
+        } else if (edge instanceof CallToReturnEdge) {
+            return Kind.CALL_TO_RETURN;
+        } else if (edge instanceof CallEdge) {
+            return Kind.CALL;
+        } else {
+            return Kind.RETURN;
+        }
+    }
+
+    @Test
+    public void testExample() {
+        test("Example");
+    }
+
+    @Test
+    public void testFibonacci() {
+        test("Fibonacci");
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class PersistentMapTest {
+
+    /**
+     * Key with given hash code, so that distinct keys can collide.
+     */
+    private record Key(int hash, int id) {
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        PersistentMap<String, Integer> map = new PersistentMap<>();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.put("a", 1));
+        Assert.assertNull(map.put("b", 2));
+        Assert.assertEquals(Integer.valueOf(1), map.put("a", 3));
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals(Integer.valueOf(3), map.get("a"));
+        Assert.assertNull(map.get("c"));
+        Assert.assertTrue(map.containsKey("b"));
+        Assert.assertEquals(Integer.valueOf(2), map.remove("b"));
+        Assert.assertNull(map.remove("b"));
+        Assert.assertEquals(Map.of("a", 3), map);
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.remove("a"));
+    }
+
+    @Test
+    public void testCollisions() {
+        PersistentMap<Key, Integer> map = new PersistentMap<>();
+        Key k1 = new Key(42, 1);
+        Key k2 = new Key(42, 2);
+        Key k3 = new Key(42, 3);
+        // differs from the others only in the high bits
+        Key k4 = new Key(42 | (1 << 30), 4);
+        map.put(k1, 1);
+        map.put(k2, 2);
+        map.put(k3, 3);
+        map.put(k4, 4);
+        Assert.assertEquals(4, map.size());
+        Assert.assertEquals(Integer.valueOf(2), map.get(k2));
+        Assert.assertNull(map.get(new Key(42, 5)));
+        Assert.assertEquals(Integer.valueOf(2), map.put(k2, 20));
+        Assert.assertEquals(4, map.size());
+        Assert.assertEquals(Integer.valueOf(1), map.remove(k1));
+        Assert.assertNull(map.remove(new Key(42, 5)));
+        Assert.assertEquals(Integer.valueOf(3), map.remove(k3));
+        // the collision shrinks to a single entry
+        Assert.assertEquals(Map.of(k2, 20, k4, 4), map);
+        Assert.assertEquals(Integer.valueOf(20), map.remove(k2));
+        Assert.assertEquals(Map.of(k4, 4), map);
+    }
+
+    @Test
+    public void testCopy() {
+        PersistentMap<Key, Integer> map = new PersistentMap<>();
+        for (int i = 0; i < 100; ++i) {
+            map.put(new Key(i % 10, i), i);
+        }
+        PersistentMap<Key, Integer> copy = map.copy();
+        Assert.assertEquals(map, copy);
+        copy.put(new Key(0, 100), 100);
+        copy.remove(new Key(1, 1));
+        copy.put(new Key(2, 2), -2);
+        Assert.assertEquals(100, map.size());
+        Assert.assertEquals(Integer.valueOf(1), map.get(new Key(1, 1)));
+        Assert.assertEquals(Integer.valueOf(2), map.get(new Key(2, 2)));
+        Assert.assertNull(map.get(new Key(0, 100)));
+        Assert.assertNotEquals(map, copy);
+        map.clear();
+        Assert.assertEquals(100, copy.size());
+        // putAll into an empty map shares the trie
+        PersistentMap<Key, Integer> other = new PersistentMap<>();
+        other.putAll(copy);
+        Assert.assertEquals(copy, other);
+        other.remove(new Key(0, 100));
+        Assert.assertTrue(copy.containsKey(new Key(0, 100)));
+    }
+
+    @Test
+    public void testEquals() {
+        PersistentMap<Key, Integer> map1 = new PersistentMap<>();
+        PersistentMap<Key, Integer> map2 = new PersistentMap<>();
+        Map<Key, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50; ++i) {
+            map1.put(new Key(i % 7, i), i);
+            map2.put(new Key((49 - i) % 7, 49 - i), 49 - i);
+            expected.put(new Key(i % 7, i), i);
+        }
+        Assert.assertEquals(map1, map2);
+        Assert.assertEquals(map1.hashCode(), map2.hashCode());
+        Assert.assertEquals(expected, map1);
+        Assert.assertEquals(map1, expected);
+        Assert.assertEquals(expected.hashCode(), map1.hashCode());
+        map2.put(new Key(0, 0), -1);
+        Assert.assertNotEquals(map1, map2);
+        Assert.assertNotEquals(map2, map1);
+    }
+
+    @Test
+    public void testIterator() {
+        PersistentMap<Key, Integer> map = new PersistentMap<>();
+        for (int i = 0; i < 20; ++i) {
+            map.put(new Key(i % 3, i), i);
+        }
+        List<Integer> values = new ArrayList<>();
+        Iterator<Map.Entry<Key, Integer>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Integer> e = it.next();
+            values.add(e.getValue());
+            if (e.getValue() % 2 == 0) {
+                it.remove();
+            }
+        }
+        Assert.assertEquals(20, values.size());
+        Assert.assertEquals(10, map.size());
+        map.forEach((k, v) -> Assert.assertEquals(1, v % 2));
+        Assert.assertThrows(NoSuchElementException.class, it::next);
+        Assert.assertFalse(new PersistentMap<>().entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(0);
+        for (int round = 0; round < 200; ++round) {
+            Map<Key, Integer> expected = new HashMap<>();
+            PersistentMap<Key, Integer> map = new PersistentMap<>();
+            List<Map<Key, Integer>> expectedCopies = new ArrayList<>();
+            List<PersistentMap<Key, Integer>> copies = new ArrayList<>();
+            for (int i = 0; i < 300; ++i) {
+                // a quarter of the keys fall into a few hash codes
+                Key key = new Key(random.nextInt(4) == 0 ?
+                        random.nextInt(8) : random.nextInt(), random.nextInt(3));
+                int op = random.nextInt(10);
+                if (op < 3 && !expected.isEmpty()) {
+                    Key existing = expected.keySet().iterator().next();
+                    Assert.assertEquals(expected.remove(existing), map.remove(existing));
+                } else if (op < 4) {
+                    Assert.assertEquals(expected.remove(key), map.remove(key));
+                } else if (op < 5) {
+                    expectedCopies.add(new HashMap<>(expected));
+                    copies.add(map.copy());
+                } else {
+                    int value = random.nextInt(5);
+                    Assert.assertEquals(expected.put(key, value), map.put(key, value));
+                }
+                Assert.assertEquals(expected.size(), map.size());
+                Assert.assertEquals(expected.get(key), map.get(key));
+                Assert.assertEquals(expected.containsKey(key), map.containsKey(key));
+            }
+            Assert.assertEquals(expected, map);
+            Assert.assertEquals(map, expected);
+            Assert.assertEquals(expected.hashCode(), map.hashCode());
+            Assert.assertEquals(expected.entrySet(), map.entrySet());
+            // the copies are not affected by later updates
+            for (int i = 0; i < copies.size(); ++i) {
+                Assert.assertEquals(expectedCopies.get(i), copies.get(i));
+                Assert.assertEquals(expectedCopies.get(i).equals(expected),
+                        copies.get(i).equals(map));
+            }
+        }
+    }
+}
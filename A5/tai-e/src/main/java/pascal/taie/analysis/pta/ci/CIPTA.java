@@ -41,8 +41,11 @@ public class CIPTA extends ProgramAnalysis {
 
     @Override
     public PointerAnalysisResult analyze() {
+        PointsToSet.setKind(getOptions().getString("pts"));
         HeapModel heapModel = new AllocationSiteBasedModel(getOptions());
-        Solver solver = new Solver(heapModel);
+        Solver solver = new Solver(heapModel,
+                getOptions().getBooleanOrDefault("diff-propagation", false),
+                getOptions().getBooleanOrDefault("cycle-elimination", false));
         solver.solve();
         CIPTAResult result = solver.getResult();
         new ResultProcessor(getOptions()).process(result);
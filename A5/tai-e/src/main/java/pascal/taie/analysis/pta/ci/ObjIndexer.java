@@ -0,0 +1,59 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.util.Indexer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers abstract objects densely in the order they are first
+ * added to a points-to set. The indexer is global to an analysis run,
+ * so that the bits of all bitmap points-to sets are comparable.
+ */
+class ObjIndexer implements Indexer<Obj> {
+
+    private final Map<Obj, Integer> indexes = new HashMap<>();
+
+    private final List<Obj> objs = new ArrayList<>();
+
+    @Override
+    public int getIndex(Obj obj) {
+        Integer index = indexes.get(obj);
+        if (index == null) {
+            index = objs.size();
+            indexes.put(obj, index);
+            objs.add(obj);
+        }
+        return index;
+    }
+
+    @Override
+    public Obj getObject(int index) {
+        return objs.get(index);
+    }
+}
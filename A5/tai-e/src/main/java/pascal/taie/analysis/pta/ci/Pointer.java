@@ -29,9 +29,17 @@ package pascal.taie.analysis.pta.ci;
  */
 abstract class Pointer {
 
-    private final PointsToSet pointsToSet = new PointsToSet();
+    private PointsToSet pointsToSet = new PointsToSet();
 
     PointsToSet getPointsToSet() {
         return pointsToSet;
     }
+
+    /**
+     * Sets the points-to set of this pointer, which is used to share
+     * one points-to set among the pointers merged on a PFG cycle.
+     */
+    void setPointsToSet(PointsToSet pointsToSet) {
+        this.pointsToSet = pointsToSet;
+    }
 }
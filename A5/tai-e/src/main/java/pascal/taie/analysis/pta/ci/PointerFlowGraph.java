@@ -30,7 +30,13 @@ import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -69,6 +75,19 @@ class PointerFlowGraph {
      */
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
+    /**
+     * Map from a pointer to its representative. Pointers on the same
+     * cycle of PFG are merged into one representative, and they share
+     * the same points-to set. Pointers that have never been merged are
+     * absent from this map.
+     */
+    private final Map<Pointer, Pointer> reps = Maps.newMap();
+
+    /**
+     * Map from a representative to all pointers merged into it.
+     */
+    private final MultiMap<Pointer, Pointer> mergedPointers = Maps.newMultiMap();
+
     /**
      * Returns all pointers in this PFG.
      */
@@ -137,4 +156,161 @@ class PointerFlowGraph {
     Set<Pointer> getSuccsOf(Pointer pointer) {
         return successors.get(pointer);
     }
+
+    /**
+     * @return the representative of given pointer.
+     */
+    Pointer getRep(Pointer pointer) {
+        Pointer rep = reps.get(pointer);
+        if (rep == null) {
+            return pointer;
+        }
+        Pointer root = rep;
+        for (Pointer next; (next = reps.get(root)) != root; ) {
+            root = next;
+        }
+        // path compression
+        while (rep != root) {
+            reps.put(pointer, root);
+            pointer = rep;
+            rep = reps.get(pointer);
+        }
+        return root;
+    }
+
+    /**
+     * @return all pointers that have been merged with given pointer,
+     * including the pointer itself.
+     */
+    Set<Pointer> getMergedPointers(Pointer pointer) {
+        Set<Pointer> merged = mergedPointers.get(getRep(pointer));
+        return merged.isEmpty() ? Set.of(pointer) : merged;
+    }
+
+    /**
+     * @return successors of all pointers merged with given pointer,
+     * excluding the merged pointers themselves.
+     */
+    Set<Pointer> getMergedSuccsOf(Pointer pointer) {
+        Pointer rep = getRep(pointer);
+        Set<Pointer> merged = mergedPointers.get(rep);
+        if (merged.isEmpty()) {
+            return getSuccsOf(pointer);
+        }
+        Set<Pointer> succs = Sets.newHybridSet();
+        for (Pointer p : merged) {
+            for (Pointer succ : successors.get(p)) {
+                if (getRep(succ) != rep) {
+                    succs.add(succ);
+                }
+            }
+        }
+        return succs;
+    }
+
+    /**
+     * @return representatives of the successors of given representative.
+     */
+    private List<Pointer> getRepSuccsOf(Pointer rep) {
+        List<Pointer> succs = new ArrayList<>();
+        for (Pointer p : getMergedPointers(rep)) {
+            for (Pointer succ : successors.get(p)) {
+                Pointer succRep = getRep(succ);
+                if (succRep != rep) {
+                    succs.add(succRep);
+                }
+            }
+        }
+        return succs;
+    }
+
+    /**
+     * Searches the strongly connected component of target with
+     * Tarjan's algorithm, where merged pointers are treated as a single
+     * node represented by their representative.
+     *
+     * @return representatives of the pointers on the cycles that go
+     * through edge (source -> target), or an empty set if there is no
+     * such cycle.
+     */
+    Set<Pointer> findCycle(Pointer source, Pointer target) {
+        Pointer sourceRep = getRep(source);
+        Pointer targetRep = getRep(target);
+        if (sourceRep == targetRep) {
+            return Set.of();
+        }
+        Map<Pointer, Integer> indexes = Maps.newMap();
+        Map<Pointer, Integer> lowLinks = Maps.newMap();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Set<Pointer> onStack = Sets.newSet();
+        Deque<Pointer> nodes = new ArrayDeque<>();
+        Deque<Iterator<Pointer>> succIters = new ArrayDeque<>();
+        indexes.put(targetRep, 0);
+        lowLinks.put(targetRep, 0);
+        stack.push(targetRep);
+        onStack.add(targetRep);
+        nodes.push(targetRep);
+        succIters.push(getRepSuccsOf(targetRep).iterator());
+        while (!nodes.isEmpty()) {
+            Pointer node = nodes.peek();
+            Iterator<Pointer> succIter = succIters.peek();
+            if (succIter.hasNext()) {
+                Pointer succ = succIter.next();
+                if (!indexes.containsKey(succ)) {
+                    int index = indexes.size();
+                    indexes.put(succ, index);
+                    lowLinks.put(succ, index);
+                    stack.push(succ);
+                    onStack.add(succ);
+                    nodes.push(succ);
+                    succIters.push(getRepSuccsOf(succ).iterator());
+                } else if (onStack.contains(succ)) {
+                    lowLinks.put(node, Math.min(lowLinks.get(node), indexes.get(succ)));
+                }
+                continue;
+            }
+            nodes.pop();
+            succIters.pop();
+            int lowLink = lowLinks.get(node);
+            if (lowLink == indexes.get(node)) {
+                // node is the root of an SCC
+                Set<Pointer> scc = Sets.newHybridSet();
+                Pointer p;
+                do {
+                    p = stack.pop();
+                    onStack.remove(p);
+                    scc.add(p);
+                } while (p != node);
+                if (node == targetRep) {
+                    return scc.size() > 1 && scc.contains(sourceRep) ? scc : Set.of();
+                }
+            }
+            Pointer parent = nodes.peek();
+            lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLink));
+        }
+        return Set.of();
+    }
+
+    /**
+     * Merges given pointers (and the pointers merged with them)
+     * into one representative.
+     *
+     * @return the representative of the merged pointers.
+     */
+    Pointer merge(Collection<Pointer> pointers) {
+        Pointer rep = getRep(pointers.iterator().next());
+        Set<Pointer> members = Sets.newSet();
+        for (Pointer pointer : pointers) {
+            Pointer oldRep = getRep(pointer);
+            members.addAll(getMergedPointers(oldRep));
+            if (oldRep != rep) {
+                mergedPointers.removeAll(oldRep);
+            }
+        }
+        for (Pointer member : members) {
+            reps.put(member, rep);
+        }
+        mergedPointers.putAll(rep, members);
+        return rep;
+    }
 }
@@ -23,33 +23,88 @@
 package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.SparseBitSet;
 import pascal.taie.util.collection.Sets;
 
+import java.util.AbstractSet;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.PrimitiveIterator;
 import java.util.Set;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents of points-to sets.
+ * <p>
+ * By default, objects are stored in a hybrid set. If bitmap points-to
+ * sets are enabled via {@link #setKind(String)}, objects are numbered
+ * by a global indexer and stored in a {@link SparseBitSet} instead.
  */
 class PointsToSet implements Iterable<Obj> {
 
-    private final Set<Obj> set = Sets.newHybridSet();
+    /**
+     * Indexer shared by all bitmap points-to sets, or null if
+     * hybrid points-to sets are used.
+     */
+    private static Indexer<Obj> objIndexer;
+
+    /**
+     * Objects of this set, null if this is a bitmap points-to set.
+     */
+    private final Set<Obj> set;
+
+    /**
+     * Indexes of the objects of this set, null if this is a hybrid
+     * points-to set.
+     */
+    private final SparseBitSet bits;
 
     /**
      * Constructs an empty points-to set.
      */
     PointsToSet() {
+        if (objIndexer == null) {
+            set = Sets.newHybridSet();
+            bits = null;
+        } else {
+            set = null;
+            bits = new SparseBitSet();
+        }
     }
 
     /**
      * Constructs a points-to set containing one object.
      */
     PointsToSet(Obj obj) {
+        this();
         addObject(obj);
     }
 
+    private PointsToSet(SparseBitSet bits) {
+        this.set = null;
+        this.bits = bits;
+    }
+
+    /**
+     * Sets the kind of points-to sets, which should be called before
+     * pointer analysis starts.
+     *
+     * @param kind "hybrid" (default) for sets backed by hybrid hash sets,
+     *             or "bitmap" for sparse bitmaps of densely numbered objects.
+     */
+    static void setKind(String kind) {
+        if (kind == null || kind.equals("hybrid")) {
+            objIndexer = null;
+        } else if (kind.equals("bitmap")) {
+            objIndexer = new ObjIndexer();
+        } else {
+            throw new ConfigException("Unknown points-to set kind: " + kind);
+        }
+    }
+
     /**
      * Adds an object to this set.
      *
@@ -57,51 +112,125 @@ class PointsToSet implements Iterable<Obj> {
      * otherwise false.
      */
     boolean addObject(Obj obj) {
-        return set.add(obj);
+        return set != null ? set.add(obj) : bits.add(objIndexer.getIndex(obj));
+    }
+
+    /**
+     * Adds all objects in given set to this set.
+     *
+     * @return true if this points-to set changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addAll(PointsToSet pts) {
+        if (bits != null && pts.bits != null) {
+            return bits.addAll(pts.bits);
+        } else if (set != null && pts.set != null) {
+            return set.addAll(pts.set);
+        } else {
+            boolean changed = false;
+            for (Obj obj : pts) {
+                changed |= addObject(obj);
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * Adds all objects in given set to this set.
+     *
+     * @return a new set containing the objects that are added to this set
+     * by this call, i.e., the objects of pts that were absent in this set.
+     */
+    PointsToSet addAllDiff(PointsToSet pts) {
+        if (bits != null && pts.bits != null) {
+            return new PointsToSet(bits.addAllDiff(pts.bits));
+        }
+        PointsToSet diff = new PointsToSet();
+        for (Obj obj : pts) {
+            if (addObject(obj)) {
+                diff.addObject(obj);
+            }
+        }
+        return diff;
     }
 
     /**
      * @return true if this points-to set contains the given object, otherwise false.
      */
     boolean contains(Obj obj) {
-        return set.contains(obj);
+        return set != null ? set.contains(obj) : bits.contains(objIndexer.getIndex(obj));
     }
 
     /**
      * @return whether this set if empty.
      */
     boolean isEmpty() {
-        return set.isEmpty();
+        return set != null ? set.isEmpty() : bits.isEmpty();
     }
 
     /**
      * @return the number of objects in this set.
      */
     int size() {
-        return set.size();
+        return set != null ? set.size() : bits.size();
     }
 
     /**
      * @return all objects in this set.
      */
     Stream<Obj> objects() {
-        return set.stream();
+        return set != null ? set.stream() : StreamSupport.stream(spliterator(), false);
     }
 
     /**
      * @return all objects in this set.
      */
     Set<Obj> getObjects() {
-        return Collections.unmodifiableSet(set);
+        if (set != null) {
+            return Collections.unmodifiableSet(set);
+        }
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Obj obj && PointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public Iterator<Obj> iterator() {
+                return PointsToSet.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return bits.size();
+            }
+        };
     }
 
     @Override
     public Iterator<Obj> iterator() {
-        return set.iterator();
+        if (set != null) {
+            return set.iterator();
+        }
+        Indexer<Obj> indexer = objIndexer;
+        PrimitiveIterator.OfInt it = bits.iterator();
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Obj next() {
+                return indexer.getObject(it.nextInt());
+            }
+        };
     }
 
     @Override
     public String toString() {
-        return set.toString();
+        return getObjects().toString();
     }
 }
@@ -37,13 +37,16 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Pair;
 import pascal.taie.language.type.Type;
 import polyglot.ast.Call;
 
 import java.security.PrivateKey;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 class Solver {
@@ -67,8 +70,40 @@ class Solver {
     private Collection<Stmt> S = new HashSet<>(); // Reachable stmts
     private StoreField field;
 
+    /**
+     * Whether to propagate only the newly discovered objects of each
+     * pointer and merge the pending entries of the same pointer.
+     */
+    private final boolean diffPropagation;
+
+    private long nEntries;
+
+    private long nPropagatedObjs;
+
+    private long nNewObjs;
+
+    /**
+     * Whether to detect cycles of PFG during propagation and merge
+     * the pointers on each cycle.
+     */
+    private final boolean cycleElimination;
+
+    /**
+     * PFG edges that have triggered cycle detection. Each edge triggers
+     * at most one detection, as in lazy cycle detection.
+     */
+    private final Set<Pair<Pointer, Pointer>> checkedEdges = new HashSet<>();
+
+    private int nMergedPointers;
+
     Solver(HeapModel heapModel) {
+        this(heapModel, false, false);
+    }
+
+    Solver(HeapModel heapModel, boolean diffPropagation, boolean cycleElimination) {
         this.heapModel = heapModel;
+        this.diffPropagation = diffPropagation;
+        this.cycleElimination = cycleElimination;
     }
 
     /**
@@ -77,13 +112,19 @@ class Solver {
     void solve() {
         initialize();
         analyze();
+        logger.info("Processed {} work-list entries, {} objects propagated, " +
+                        "{} new points-to facts",
+                nEntries, nPropagatedObjs, nNewObjs);
+        if (cycleElimination) {
+            logger.info("Merged {} pointers on PFG cycles", nMergedPointers);
+        }
     }
 
     /**
      * Initializes pointer analysis.
      */
     private void initialize() {
-        workList = new WorkList();
+        workList = new WorkList(diffPropagation);
         pointerFlowGraph = new PointerFlowGraph();
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
@@ -158,7 +199,14 @@ class Solver {
         if (!pointerFlowGraph.getSuccsOf(source).contains(target)) { // 没有 source -> target 这条边
             pointerFlowGraph.addEdge(source, target);
             if (!source.getPointsToSet().isEmpty()) {
-                workList.addEntry(target, source.getPointsToSet());
+                PointsToSet pts = source.getPointsToSet();
+                if (diffPropagation) {
+                    // pt(source) 之后还会变 而 pending 的集合可能被 WorkList 合并 所以这里拷贝一份快照
+                    PointsToSet snapshot = new PointsToSet();
+                    snapshot.addAll(pts);
+                    pts = snapshot;
+                }
+                workList.addEntry(target, pts);
             }
         }
     }
@@ -170,37 +218,109 @@ class Solver {
         // TODO - finish me
         while (!workList.isEmpty()) {
             WorkList.Entry entry = workList.pollEntry();
+            ++nEntries;
             Pointer ptr = entry.pointer();
             PointsToSet pts = entry.pointsToSet();
             PointsToSet dt = propagate(ptr, pts);
-            if (ptr instanceof VarPtr) {
-                for (Obj obj : dt) {
-                    for (StoreField storeField : ((VarPtr) ptr).getVar().getStoreFields()) { // x.f = y
-                        JField jField = storeField.getFieldRef().resolve(); // 实例方法
-                        Pointer target = pointerFlowGraph.getInstanceField(obj, jField);
-                        addPFGEdge(pointerFlowGraph.getVarPtr(storeField.getRValue()), target);
-                    }
-                    for (LoadField loadField : ((VarPtr) ptr).getVar().getLoadFields()) { // y = x.f
-                        System.out.println("[papaya]:loadField ----- "+loadField.toString());
-                        JField jField = loadField.getFieldRef().resolve(); // 实例方法
-                        Pointer source = pointerFlowGraph.getInstanceField(obj, jField);
-                        addPFGEdge(source,pointerFlowGraph.getVarPtr(loadField.getLValue()));
-                    }
-                    for (StoreArray storeArray : ((VarPtr) ptr).getVar().getStoreArrays()) { // x[i] = y
-                        Pointer target = pointerFlowGraph.getArrayIndex(obj); // 数组store oi[*]
-                        addPFGEdge(pointerFlowGraph.getVarPtr(storeArray.getRValue()), target);
-                    }
-                    for (LoadArray loadArray : ((VarPtr) ptr).getVar().getLoadArrays()) { // y = x[i]
-                        Pointer source = pointerFlowGraph.getArrayIndex(obj); // 数组load  oi[*]
-                        addPFGEdge(source, pointerFlowGraph.getVarPtr(loadArray.getLValue()));
+            if (dt.isEmpty()) continue;
+            for (Pointer p : pointerFlowGraph.getMergedPointers(ptr)) { // 环上合并的指针共享 pt 每个都要处理
+                processNewObjects(p, dt);
+            }
+            if (cycleElimination) {
+                detectCycle(ptr);
+            }
+        }
+    }
+
+    /**
+     * Processes the instance field and array accesses and the instance
+     * calls on the objects newly pointed to by given pointer.
+     */
+    private void processNewObjects(Pointer ptr, PointsToSet dt) {
+        if (ptr instanceof VarPtr) {
+            for (Obj obj : dt) {
+                for (StoreField storeField : ((VarPtr) ptr).getVar().getStoreFields()) { // x.f = y
+                    JField jField = storeField.getFieldRef().resolve(); // 实例方法
+                    Pointer target = pointerFlowGraph.getInstanceField(obj, jField);
+                    addPFGEdge(pointerFlowGraph.getVarPtr(storeField.getRValue()), target);
+                }
+                for (LoadField loadField : ((VarPtr) ptr).getVar().getLoadFields()) { // y = x.f
+                    logger.trace("[loadField] {}", loadField);
+                    JField jField = loadField.getFieldRef().resolve(); // 实例方法
+                    Pointer source = pointerFlowGraph.getInstanceField(obj, jField);
+                    addPFGEdge(source,pointerFlowGraph.getVarPtr(loadField.getLValue()));
+                }
+                for (StoreArray storeArray : ((VarPtr) ptr).getVar().getStoreArrays()) { // x[i] = y
+                    Pointer target = pointerFlowGraph.getArrayIndex(obj); // 数组store oi[*]
+                    addPFGEdge(pointerFlowGraph.getVarPtr(storeArray.getRValue()), target);
+                }
+                for (LoadArray loadArray : ((VarPtr) ptr).getVar().getLoadArrays()) { // y = x[i]
+                    Pointer source = pointerFlowGraph.getArrayIndex(obj); // 数组load  oi[*]
+                    addPFGEdge(source, pointerFlowGraph.getVarPtr(loadArray.getLValue()));
+                }
+                processCall(((VarPtr) ptr).getVar(), obj);
+            }
+        } else if (ptr instanceof ArrayIndex) {
+        } else if (ptr instanceof StaticField) {
+        } else if (ptr instanceof InstanceField) {
+        }
+    }
+
+    /**
+     * Lazy cycle detection: an edge (pointer -> succ) whose two ends
+     * already have the same points-to set is likely on a cycle, so
+     * we search for the cycle and merge the pointers on it.
+     */
+    private void detectCycle(Pointer pointer) {
+        PointsToSet pts = pointer.getPointsToSet();
+        for (Pointer succ : pointerFlowGraph.getMergedSuccsOf(pointer)) {
+            PointsToSet succPts = succ.getPointsToSet();
+            if (succPts.size() == pts.size() &&
+                    checkedEdges.add(new Pair<>(pointer, succ)) &&
+                    pts.objects().allMatch(succPts::contains)) {
+                Set<Pointer> cycle = pointerFlowGraph.findCycle(pointer, succ);
+                if (!cycle.isEmpty()) {
+                    mergeCycle(cycle);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the pointers on a cycle, so that they share one points-to
+     * set afterwards. The objects that are new to a pointer after the
+     * merge are processed and propagated as usual.
+     */
+    private void mergeCycle(Set<Pointer> cycle) {
+        Pointer rep = pointerFlowGraph.merge(cycle);
+        Set<Pointer> members = pointerFlowGraph.getMergedPointers(rep);
+        PointsToSet merged = new PointsToSet();
+        Map<PointsToSet, PointsToSet> diffs = new IdentityHashMap<>();
+        for (Pointer member : members) {
+            if (!diffs.containsKey(member.getPointsToSet())) {
+                diffs.put(member.getPointsToSet(), null);
+                merged.addAll(member.getPointsToSet());
+            }
+        }
+        for (PointsToSet pts : diffs.keySet()) {
+            PointsToSet copy = new PointsToSet();
+            copy.addAll(pts);
+            diffs.put(pts, copy.addAllDiff(merged));
+        }
+        for (Pointer member : members) {
+            PointsToSet diff = diffs.get(member.getPointsToSet());
+            member.setPointsToSet(merged);
+            if (!diff.isEmpty()) {
+                processNewObjects(member, diff);
+                for (Pointer succ : pointerFlowGraph.getSuccsOf(member)) {
+                    if (pointerFlowGraph.getRep(succ) != rep) {
+                        workList.addEntry(succ, diff);
                     }
-                    processCall(((VarPtr) ptr).getVar(), obj);
                 }
-            } else if (ptr instanceof ArrayIndex) {
-            } else if (ptr instanceof StaticField) {
-            } else if (ptr instanceof InstanceField) {
             }
         }
+        nMergedPointers += cycle.size() - 1;
     }
 
     /**
@@ -209,6 +329,10 @@ class Solver {
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         // TODO - finish me
+        nPropagatedObjs += pointsToSet.size();
+        if (diffPropagation) {
+            return propagateDiff(pointer, pointsToSet);
+        }
         PointsToSet ret = new PointsToSet();
         for (Obj object : pointsToSet.getObjects()) {
             if (!pointer.getPointsToSet().contains(object)) { // pts - pt(n)
@@ -219,14 +343,32 @@ class Solver {
             for (Obj object : ret.getObjects()) {
                 pointer.getPointsToSet().addObject(object); // pt(n) v= pts
             }
-            for (Pointer target : pointerFlowGraph.getSuccsOf(pointer)) { //  pointer -> target
+            for (Pointer target : pointerFlowGraph.getMergedSuccsOf(pointer)) { //  pointer -> target
                 workList.addEntry(target, ret); //
             }
         }
 
+        nNewObjs += ret.size();
         return ret;
     }
 
+    /**
+     * Difference propagation: merges pointsToSet into pt(pointer) in one
+     * pass, and only the difference set flows to the PFG successors.
+     * The difference set is shared by the successors since the work list
+     * never updates the sets it does not own.
+     */
+    private PointsToSet propagateDiff(Pointer pointer, PointsToSet pointsToSet) {
+        PointsToSet diff = pointer.getPointsToSet().addAllDiff(pointsToSet); // pt(n) v= pts 同时得到 pts - pt(n)
+        if (!diff.isEmpty()) {
+            nNewObjs += diff.size();
+            for (Pointer target : pointerFlowGraph.getMergedSuccsOf(pointer)) {
+                workList.addEntry(target, diff);
+            }
+        }
+        return diff;
+    }
+
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
      *
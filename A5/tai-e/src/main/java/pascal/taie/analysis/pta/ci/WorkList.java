@@ -23,7 +23,13 @@
 package pascal.taie.analysis.pta.ci;
 
 import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
 /**
  * Represents work list in pointer analysis.
@@ -32,11 +38,59 @@ class WorkList {
 
     private final Queue<Entry> entries = new ArrayDeque<>();
 
+    /**
+     * Whether entries of the same pointer are merged.
+     */
+    private final boolean mergeEntries;
+
+    /**
+     * Pending objects of the pointers in this work list if entries are
+     * merged, in the order the pointers are added.
+     */
+    private final Map<Pointer, PointsToSet> pending = new LinkedHashMap<>();
+
+    /**
+     * Pending points-to sets created by this work list, which can be
+     * updated in place. Other sets are shared with the solver and must
+     * not be modified.
+     */
+    private final Set<PointsToSet> ownSets =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    WorkList() {
+        this(false);
+    }
+
+    /**
+     * @param mergeEntries if true, the entries of the same pointer are
+     *                     merged into a single entry holding the union
+     *                     of their points-to sets.
+     */
+    WorkList(boolean mergeEntries) {
+        this.mergeEntries = mergeEntries;
+    }
+
     /**
      * Adds an entry to the work list.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        if (!mergeEntries) {
+            entries.add(new Entry(pointer, pointsToSet));
+            return;
+        }
+        PointsToSet pts = pending.get(pointer);
+        if (pts == null) {
+            pending.put(pointer, pointsToSet);
+        } else {
+            if (!ownSets.contains(pts)) {
+                PointsToSet union = new PointsToSet();
+                union.addAll(pts);
+                pending.put(pointer, union);
+                ownSets.add(union);
+                pts = union;
+            }
+            pts.addAll(pointsToSet);
+        }
     }
 
     /**
@@ -44,14 +98,24 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        if (!mergeEntries) {
+            return entries.poll();
+        }
+        Iterator<Map.Entry<Pointer, PointsToSet>> it = pending.entrySet().iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        Map.Entry<Pointer, PointsToSet> next = it.next();
+        it.remove();
+        ownSets.remove(next.getValue());
+        return new Entry(next.getKey(), next.getValue());
     }
 
     /**
      * @return true if the work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return mergeEntries ? pending.isEmpty() : entries.isEmpty();
     }
 
     /**
@@ -0,0 +1,345 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Sparse bit set which only stores the non-zero 64-bit words together
+ * with their word indexes, kept sorted by word index. Compared with
+ * {@link java.util.BitSet}, the memory footprint is proportional to the
+ * number of non-zero words rather than the largest set bit, which suits
+ * the sets of densely numbered objects that are spread over a large
+ * index space, e.g., points-to sets.
+ * <p>
+ * Unions are performed by merging the two sorted word arrays,
+ * so {@link #addAll(SparseBitSet)} and {@link #addAllDiff(SparseBitSet)}
+ * cost linear time in the number of non-zero words.
+ */
+public class SparseBitSet implements Iterable<Integer> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final int[] EMPTY_KEYS = {};
+
+    private static final long[] EMPTY_WORDS = {};
+
+    /**
+     * Word indexes of the non-zero words, in ascending order.
+     */
+    private int[] keys;
+
+    /**
+     * The non-zero words, words[i] is the word at index keys[i].
+     */
+    private long[] words;
+
+    /**
+     * Number of words in use.
+     */
+    private int nWords;
+
+    /**
+     * Number of set bits.
+     */
+    private int cardinality;
+
+    public SparseBitSet() {
+        keys = EMPTY_KEYS;
+        words = EMPTY_WORDS;
+    }
+
+    private SparseBitSet(int[] keys, long[] words, int nWords, int cardinality) {
+        this.keys = keys;
+        this.words = words;
+        this.nWords = nWords;
+        this.cardinality = cardinality;
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >>> ADDRESS_BITS_PER_WORD;
+    }
+
+    /**
+     * @return position of given word index in {@link #keys}, or
+     * (-(insertion point) - 1) if the word is absent.
+     */
+    private int find(int key) {
+        if (nWords > 0 && keys[nWords - 1] == key) {
+            // fast path for the common case that indexes grow monotonically
+            return nWords - 1;
+        }
+        return Arrays.binarySearch(keys, 0, nWords, key);
+    }
+
+    /**
+     * Sets the bit at given index.
+     *
+     * @return true if this set changed as a result of the call.
+     */
+    public boolean add(int bitIndex) {
+        int key = wordIndex(bitIndex);
+        int pos = find(key);
+        long bit = 1L << bitIndex;
+        if (pos >= 0) {
+            long oldWord = words[pos];
+            if ((oldWord & bit) != 0) {
+                return false;
+            }
+            words[pos] = oldWord | bit;
+        } else {
+            insertWord(-pos - 1, key, bit);
+        }
+        ++cardinality;
+        return true;
+    }
+
+    private void insertWord(int pos, int key, long word) {
+        if (nWords == keys.length) {
+            int newLength = Math.max(4, nWords + (nWords >> 1));
+            keys = Arrays.copyOf(keys, newLength);
+            words = Arrays.copyOf(words, newLength);
+        }
+        if (pos < nWords) {
+            System.arraycopy(keys, pos, keys, pos + 1, nWords - pos);
+            System.arraycopy(words, pos, words, pos + 1, nWords - pos);
+        }
+        keys[pos] = key;
+        words[pos] = word;
+        ++nWords;
+    }
+
+    /**
+     * Appends a word whose index is larger than all words in this set.
+     */
+    private void appendWord(int key, long word) {
+        insertWord(nWords, key, word);
+        cardinality += Long.bitCount(word);
+    }
+
+    /**
+     * @return true if the bit at given index is set.
+     */
+    public boolean contains(int bitIndex) {
+        int pos = find(wordIndex(bitIndex));
+        return pos >= 0 && (words[pos] & (1L << bitIndex)) != 0;
+    }
+
+    /**
+     * Sets all bits which are set in other set.
+     *
+     * @return true if this set changed as a result of the call.
+     */
+    public boolean addAll(SparseBitSet other) {
+        return union(other, null);
+    }
+
+    /**
+     * Sets all bits which are set in other set.
+     *
+     * @return a new set containing the bits that are set by this call,
+     * i.e., the bits of other set that were absent in this set.
+     */
+    public SparseBitSet addAllDiff(SparseBitSet other) {
+        SparseBitSet diff = new SparseBitSet();
+        union(other, diff);
+        return diff;
+    }
+
+    /**
+     * Merges other set into this set. If diff is not null, the newly
+     * set bits are appended to it.
+     */
+    private boolean union(SparseBitSet other, SparseBitSet diff) {
+        if (other.nWords == 0 || other == this) {
+            return false;
+        }
+        // count the words of other set that are absent in this set
+        int nNewWords = 0;
+        for (int i = 0, j = 0; j < other.nWords; ++j) {
+            int key = other.keys[j];
+            while (i < nWords && keys[i] < key) {
+                ++i;
+            }
+            if (i == nWords || keys[i] != key) {
+                ++nNewWords;
+            }
+        }
+        int oldCardinality = cardinality;
+        if (nNewWords == 0) {
+            // all words exist, update them in place
+            for (int i = 0, j = 0; j < other.nWords; ++j) {
+                int key = other.keys[j];
+                while (keys[i] != key) {
+                    ++i;
+                }
+                long oldWord = words[i];
+                long newBits = other.words[j] & ~oldWord;
+                if (newBits != 0) {
+                    words[i] = oldWord | newBits;
+                    cardinality += Long.bitCount(newBits);
+                    if (diff != null) {
+                        diff.appendWord(key, newBits);
+                    }
+                }
+            }
+        } else {
+            int n = nWords + nNewWords;
+            int[] newKeys = new int[n];
+            long[] newWords = new long[n];
+            int i = 0, j = 0, k = 0;
+            while (i < nWords || j < other.nWords) {
+                if (j == other.nWords ||
+                        (i < nWords && keys[i] < other.keys[j])) {
+                    newKeys[k] = keys[i];
+                    newWords[k++] = words[i++];
+                } else {
+                    int key = other.keys[j];
+                    long oldWord = 0;
+                    if (i < nWords && keys[i] == key) {
+                        oldWord = words[i++];
+                    }
+                    long newBits = other.words[j++] & ~oldWord;
+                    if (newBits != 0) {
+                        cardinality += Long.bitCount(newBits);
+                        if (diff != null) {
+                            diff.appendWord(key, newBits);
+                        }
+                    }
+                    newKeys[k] = key;
+                    newWords[k++] = oldWord | newBits;
+                }
+            }
+            keys = newKeys;
+            words = newWords;
+            nWords = n;
+        }
+        return cardinality != oldCardinality;
+    }
+
+    /**
+     * @return a copy of this set.
+     */
+    public SparseBitSet copy() {
+        return new SparseBitSet(Arrays.copyOf(keys, nWords),
+                Arrays.copyOf(words, nWords), nWords, cardinality);
+    }
+
+    /**
+     * @return the number of set bits.
+     */
+    public int size() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Performs the given action for the index of each set bit,
+     * in ascending order.
+     */
+    public void forEachBit(IntConsumer action) {
+        for (int i = 0; i < nWords; ++i) {
+            int base = keys[i] << ADDRESS_BITS_PER_WORD;
+            long word = words[i];
+            while (word != 0) {
+                action.accept(base + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * @return an iterator over the indexes of the set bits,
+     * in ascending order.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int pos = 0;
+
+            private long word = nWords > 0 ? words[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    if (++pos >= nWords) {
+                        return false;
+                    }
+                    word = words[pos];
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bitIndex = (keys[pos] << ADDRESS_BITS_PER_WORD) +
+                        Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                return bitIndex;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SparseBitSet that)) {
+            return false;
+        }
+        return Arrays.equals(keys, 0, nWords, that.keys, 0, that.nWords) &&
+                Arrays.equals(words, 0, nWords, that.words, 0, that.nWords);
+    }
+
+    @Override
+    public int hashCode() {
+        long h = 1234;
+        for (int i = 0; i < nWords; ++i) {
+            h ^= words[i] * (keys[i] + 1);
+        }
+        return (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEachBit(i -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(i);
+        });
+        return sb.append('}').toString();
+    }
+}
@@ -78,4 +78,19 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    @Test
+    public void testDiffPropagation() {
+        Tests.testCIPTA(DIR, "InstanceField", "diff-propagation:true");
+    }
+
+    @Test
+    public void testBitmapPointsToSet() {
+        Tests.testCIPTA(DIR, "Array", "pts:bitmap", "diff-propagation:true");
+    }
+
+    @Test
+    public void testCycleElimination() {
+        Tests.testCIPTA(DIR, "Call", "cycle-elimination:true");
+    }
 }
@@ -0,0 +1,174 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+public class SparseBitSetTest {
+
+    private static SparseBitSet of(int... bits) {
+        SparseBitSet set = new SparseBitSet();
+        for (int bit : bits) {
+            set.add(bit);
+        }
+        return set;
+    }
+
+    private static List<Integer> toList(SparseBitSet set) {
+        List<Integer> list = new ArrayList<>();
+        set.forEach(list::add);
+        return list;
+    }
+
+    @Test
+    public void testAdd() {
+        SparseBitSet set = new SparseBitSet();
+        Assert.assertTrue(set.isEmpty());
+        // word indexes 2, 0, 1000, 1 in this order, to insert words
+        // at the end, at the front and in the middle
+        Assert.assertTrue(set.add(130));
+        Assert.assertTrue(set.add(3));
+        Assert.assertTrue(set.add(64000));
+        Assert.assertTrue(set.add(64));
+        Assert.assertTrue(set.add(127));
+        Assert.assertFalse(set.add(130));
+        Assert.assertFalse(set.add(3));
+        Assert.assertEquals(5, set.size());
+        Assert.assertTrue(set.contains(127));
+        Assert.assertFalse(set.contains(128));
+        Assert.assertFalse(set.contains(63999));
+        Assert.assertEquals(List.of(3, 64, 127, 130, 64000), toList(set));
+    }
+
+    @Test
+    public void testAddAllInterleaved() {
+        // words 0, 2, 4 and words 1, 2, 3, where word 2 is shared
+        SparseBitSet set = of(1, 130, 260);
+        SparseBitSet other = of(65, 131, 130, 200);
+        Assert.assertTrue(set.addAll(other));
+        Assert.assertEquals(List.of(1, 65, 130, 131, 200, 260), toList(set));
+        Assert.assertEquals(6, set.size());
+        Assert.assertFalse(set.addAll(other));
+        // other set is not changed
+        Assert.assertEquals(List.of(65, 130, 131, 200), toList(other));
+    }
+
+    @Test
+    public void testAddAllDisjoint() {
+        SparseBitSet low = of(0, 63);
+        SparseBitSet high = of(6400, 6463);
+        SparseBitSet set = low.copy();
+        Assert.assertTrue(set.addAll(high));
+        Assert.assertEquals(List.of(0, 63, 6400, 6463), toList(set));
+        set = high.copy();
+        Assert.assertTrue(set.addAll(low));
+        Assert.assertEquals(List.of(0, 63, 6400, 6463), toList(set));
+        Assert.assertEquals(of(0, 63, 6400, 6463), set);
+    }
+
+    @Test
+    public void testAddAllSameWords() {
+        // all words of other set exist, so they are updated in place
+        SparseBitSet set = of(1, 70);
+        Assert.assertTrue(set.addAll(of(2, 71)));
+        Assert.assertEquals(List.of(1, 2, 70, 71), toList(set));
+        Assert.assertFalse(set.addAll(of(1, 71)));
+        Assert.assertFalse(set.addAll(new SparseBitSet()));
+        Assert.assertTrue(new SparseBitSet().addAll(set));
+    }
+
+    @Test
+    public void testAddAllDiff() {
+        SparseBitSet set = of(1, 130, 260);
+        SparseBitSet diff = set.addAllDiff(of(1, 2, 65, 130, 6400));
+        Assert.assertEquals(List.of(2, 65, 6400), toList(diff));
+        Assert.assertEquals(3, diff.size());
+        Assert.assertEquals(List.of(1, 2, 65, 130, 260, 6400), toList(set));
+        diff = set.addAllDiff(of(2, 260));
+        Assert.assertTrue(diff.isEmpty());
+        // the words of other set all exist in this set
+        diff = set.addAllDiff(of(3, 6401));
+        Assert.assertEquals(List.of(3, 6401), toList(diff));
+    }
+
+    @Test
+    public void testAddAllSelf() {
+        SparseBitSet set = of(1, 130, 6400);
+        Assert.assertFalse(set.addAll(set));
+        Assert.assertTrue(set.addAllDiff(set).isEmpty());
+        Assert.assertEquals(List.of(1, 130, 6400), toList(set));
+        Assert.assertEquals(3, set.size());
+    }
+
+    @Test
+    public void testIterator() {
+        SparseBitSet set = of(6463, 0, 64, 63, 6400);
+        PrimitiveIterator.OfInt it = set.iterator();
+        for (int bit : new int[]{ 0, 63, 64, 6400, 6463 }) {
+            Assert.assertTrue(it.hasNext());
+            Assert.assertEquals(bit, it.nextInt());
+        }
+        Assert.assertFalse(it.hasNext());
+        Assert.assertThrows(NoSuchElementException.class, it::nextInt);
+        Assert.assertFalse(new SparseBitSet().iterator().hasNext());
+        List<Integer> bits = new ArrayList<>();
+        set.forEachBit(bits::add);
+        Assert.assertEquals(toList(set), bits);
+    }
+
+    @Test
+    public void testRandomUnions() {
+        Random random = new Random(0);
+        for (int round = 0; round < 200; ++round) {
+            SparseBitSet set = new SparseBitSet();
+            BitSet expected = new BitSet();
+            for (int i = 0; i < 20; ++i) {
+                SparseBitSet other = new SparseBitSet();
+                BitSet otherExpected = new BitSet();
+                int bound = random.nextBoolean() ? 256 : 1 << 16;
+                for (int j = random.nextInt(30); j > 0; --j) {
+                    int bit = random.nextInt(bound);
+                    other.add(bit);
+                    otherExpected.set(bit);
+                }
+                BitSet diffExpected = (BitSet) otherExpected.clone();
+                diffExpected.andNot(expected);
+                SparseBitSet diff = set.addAllDiff(other);
+                expected.or(otherExpected);
+                Assert.assertEquals(diffExpected.stream().boxed().toList(),
+                        toList(diff));
+                Assert.assertEquals(expected.stream().boxed().toList(),
+                        toList(set));
+                Assert.assertEquals(expected.cardinality(), set.size());
+            }
+        }
+    }
+}
@@ -56,33 +56,50 @@ public class ConstantPropagation extends
 
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
-        // TODO - finish me
-        return null;
+        CPFact fact = new CPFact();
+        for (Var param : cfg.getIR().getParams()) {
+            if (canHoldInt(param)) {
+                fact.update(param, Value.getNAC());
+            }
+        }
+        return fact;
     }
 
     @Override
     public CPFact newInitialFact() {
-        // TODO - finish me
-        return null;
+        return new CPFact();
     }
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
-        // TODO - finish me
+        fact.forEach((var, value) ->
+                target.update(var, meetValue(value, target.get(var))));
     }
 
     /**
      * Meets two Values.
      */
     public Value meetValue(Value v1, Value v2) {
-        // TODO - finish me
-        return null;
+        if (v1.isNAC() || v2.isNAC()) {
+            return Value.getNAC();
+        } else if (v1.isUndef()) {
+            return v2;
+        } else if (v2.isUndef()) {
+            return v1;
+        } else {
+            return v1.getConstant() == v2.getConstant() ? v1 : Value.getNAC();
+        }
     }
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
-        // TODO - finish me
-        return false;
+        if (stmt instanceof DefinitionStmt<?, ?> definition &&
+                definition.getLValue() instanceof Var lhs && canHoldInt(lhs)) {
+            CPFact result = in.copy();
+            result.update(lhs, evaluate(definition.getRValue(), in));
+            return out.copyFrom(result);
+        }
+        return out.copyFrom(in);
     }
 
     /**
@@ -111,7 +128,66 @@ public class ConstantPropagation extends
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
-        // TODO - finish me
-        return null;
+        if (exp instanceof IntLiteral literal) {
+            return Value.makeConstant(literal.getValue());
+        } else if (exp instanceof Var var) {
+            return canHoldInt(var) ? in.get(var) : Value.getNAC();
+        } else if (exp instanceof BinaryExp binary) {
+            return evaluate(binary, in);
+        }
+        return Value.getNAC();
+    }
+
+    private static Value evaluate(BinaryExp exp, CPFact in) {
+        Value v1 = in.get(exp.getOperand1());
+        Value v2 = in.get(exp.getOperand2());
+        BinaryExp.Op op = exp.getOperator();
+        if (v2.isConstant() && v2.getConstant() == 0 &&
+                (op == ArithmeticExp.Op.DIV || op == ArithmeticExp.Op.REM)) {
+            // division by zero
+            return Value.getUndef();
+        }
+        if (v1.isConstant() && v2.isConstant()) {
+            return Value.makeConstant(compute(op, v1.getConstant(), v2.getConstant()));
+        } else if (v1.isNAC() || v2.isNAC()) {
+            return Value.getNAC();
+        } else {
+            return Value.getUndef();
+        }
+    }
+
+    private static int compute(BinaryExp.Op op, int i1, int i2) {
+        if (op instanceof ArithmeticExp.Op arithmetic) {
+            return switch (arithmetic) {
+                case ADD -> i1 + i2;
+                case SUB -> i1 - i2;
+                case MUL -> i1 * i2;
+                case DIV -> i1 / i2;
+                case REM -> i1 % i2;
+            };
+        } else if (op instanceof BitwiseExp.Op bitwise) {
+            return switch (bitwise) {
+                case OR -> i1 | i2;
+                case AND -> i1 & i2;
+                case XOR -> i1 ^ i2;
+            };
+        } else if (op instanceof ShiftExp.Op shift) {
+            return switch (shift) {
+                case SHL -> i1 << i2;
+                case SHR -> i1 >> i2;
+                case USHR -> i1 >>> i2;
+            };
+        } else if (op instanceof ConditionExp.Op condition) {
+            boolean result = switch (condition) {
+                case EQ -> i1 == i2;
+                case NE -> i1 != i2;
+                case LT -> i1 < i2;
+                case GT -> i1 > i2;
+                case LE -> i1 <= i2;
+                case GE -> i1 >= i2;
+            };
+            return result ? 1 : 0;
+        }
+        throw new AnalysisException("Unexpected operator: " + op);
     }
 }
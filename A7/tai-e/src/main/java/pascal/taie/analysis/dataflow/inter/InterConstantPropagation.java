@@ -25,6 +25,7 @@ package pascal.taie.analysis.dataflow.inter;
 import pascal.taie.World;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
@@ -32,13 +33,27 @@ import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InstanceFieldAccess;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
 import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+
+import java.util.Map;
+
+import static pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation.canHoldInt;
 
 /**
  * Implementation of interprocedural constant propagation for int values.
@@ -50,16 +65,69 @@ public class InterConstantPropagation extends
 
     private final ConstantPropagation cp;
 
+    private final boolean aliasAware;
+
+    private PointerAnalysisResult pta;
+
+    /**
+     * Values of instance fields, i.e., the meet of the values stored
+     * to each field of each abstract object.
+     */
+    private final Map<Pair<Obj, JField>, Value> fieldValues = Maps.newMap();
+
+    /**
+     * Loads of instance fields, indexed by the fields and the abstract
+     * objects pointed to by the bases of the loads.
+     */
+    private final MultiMap<Pair<Obj, JField>, LoadField> fieldLoads = Maps.newMultiMap();
+
+    private final Map<JField, Value> staticFieldValues = Maps.newMap();
+
+    private final MultiMap<JField, LoadField> staticFieldLoads = Maps.newMultiMap();
+
+    /**
+     * Values of array elements of each abstract array object, grouped by
+     * the values of the indexes (either a constant or NAC) of the stores.
+     */
+    private final Map<Obj, Map<Value, Value>> arrayValues = Maps.newMap();
+
+    /**
+     * Loads of arrays, indexed by the abstract array objects
+     * pointed to by the bases of the loads.
+     */
+    private final MultiMap<Obj, LoadArray> arrayLoads = Maps.newMultiMap();
+
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
         cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        aliasAware = getOptions().getBoolean("alias-aware");
     }
 
     @Override
     protected void initialize() {
+        if (!aliasAware) {
+            return;
+        }
         String ptaId = getOptions().getString("pta");
-        PointerAnalysisResult pta = World.get().getResult(ptaId);
-        // You can do initialization work here
+        pta = World.get().getResult(ptaId);
+        // index the loads by the abstract objects they may access, so that
+        // a change of the value of a field (or an array) only affects the
+        // loads that may read it, instead of all loads of the field
+        for (Stmt stmt : icfg) {
+            if (stmt instanceof LoadField load && canHoldInt(load.getLValue())) {
+                JField field = load.getFieldRef().resolve();
+                if (load.isStatic()) {
+                    staticFieldLoads.put(field, load);
+                } else {
+                    Var base = ((InstanceFieldAccess) load.getFieldAccess()).getBase();
+                    pta.getPointsToSet(base).forEach(obj ->
+                            fieldLoads.put(new Pair<>(obj, field), load));
+                }
+            } else if (stmt instanceof LoadArray load && canHoldInt(load.getLValue())) {
+                pta.getPointsToSet(load.getArrayAccess().getBase())
+                        .forEach(obj -> arrayLoads.put(obj, load));
+            }
+        }
     }
 
     @Override
@@ -85,37 +153,185 @@ public class InterConstantPropagation extends
 
     @Override
     protected boolean transferCallNode(Stmt stmt, CPFact in, CPFact out) {
-        // TODO - finish me
-        return false;
+        return out.copyFrom(in);
     }
 
     @Override
     protected boolean transferNonCallNode(Stmt stmt, CPFact in, CPFact out) {
-        // TODO - finish me
+        if (aliasAware) {
+            if (stmt instanceof LoadField load) {
+                return transferLoadField(load, in, out);
+            } else if (stmt instanceof StoreField store) {
+                transferStoreField(store, in);
+            } else if (stmt instanceof LoadArray load) {
+                return transferLoadArray(load, in, out);
+            } else if (stmt instanceof StoreArray store) {
+                transferStoreArray(store, in);
+            }
+        }
+        return cp.transferNode(stmt, in, out);
+    }
+
+    private boolean transferLoadField(LoadField load, CPFact in, CPFact out) {
+        Var lhs = load.getLValue();
+        if (!canHoldInt(lhs)) {
+            return out.copyFrom(in);
+        }
+        JField field = load.getFieldRef().resolve();
+        Value value;
+        if (load.isStatic()) {
+            value = staticFieldValues.getOrDefault(field, Value.getUndef());
+        } else {
+            value = Value.getUndef();
+            Var base = ((InstanceFieldAccess) load.getFieldAccess()).getBase();
+            for (Obj obj : pta.getPointsToSet(base)) {
+                value = cp.meetValue(value, fieldValues.getOrDefault(
+                        new Pair<>(obj, field), Value.getUndef()));
+            }
+        }
+        return transferDefinition(lhs, value, in, out);
+    }
+
+    private void transferStoreField(StoreField store, CPFact in) {
+        Var rhs = store.getRValue();
+        if (!canHoldInt(rhs)) {
+            return;
+        }
+        Value value = in.get(rhs);
+        if (value.isUndef()) {
+            return;
+        }
+        JField field = store.getFieldRef().resolve();
+        if (store.isStatic()) {
+            if (meetInto(staticFieldValues, field, value)) {
+                staticFieldLoads.get(field).forEach(solver::addToWorkList);
+            }
+        } else {
+            Var base = ((InstanceFieldAccess) store.getFieldAccess()).getBase();
+            for (Obj obj : pta.getPointsToSet(base)) {
+                Pair<Obj, JField> key = new Pair<>(obj, field);
+                if (meetInto(fieldValues, key, value)) {
+                    fieldLoads.get(key).forEach(solver::addToWorkList);
+                }
+            }
+        }
+    }
+
+    private boolean transferLoadArray(LoadArray load, CPFact in, CPFact out) {
+        Var lhs = load.getLValue();
+        if (!canHoldInt(lhs)) {
+            return out.copyFrom(in);
+        }
+        Value index = in.get(load.getArrayAccess().getIndex());
+        Value value = Value.getUndef();
+        if (!index.isUndef()) {
+            for (Obj obj : pta.getPointsToSet(load.getArrayAccess().getBase())) {
+                Map<Value, Value> elements = arrayValues.get(obj);
+                if (elements == null) {
+                    continue;
+                }
+                if (index.isNAC()) {
+                    // may alias the stores with any (non-UNDEF) index
+                    for (Value v : elements.values()) {
+                        value = cp.meetValue(value, v);
+                    }
+                } else {
+                    // may alias the stores with the same constant index
+                    // or with NAC index
+                    value = cp.meetValue(value,
+                            elements.getOrDefault(index, Value.getUndef()));
+                    value = cp.meetValue(value,
+                            elements.getOrDefault(Value.getNAC(), Value.getUndef()));
+                }
+            }
+        }
+        return transferDefinition(lhs, value, in, out);
+    }
+
+    private void transferStoreArray(StoreArray store, CPFact in) {
+        Var rhs = store.getRValue();
+        if (!canHoldInt(rhs)) {
+            return;
+        }
+        Value value = in.get(rhs);
+        Value index = in.get(store.getArrayAccess().getIndex());
+        if (value.isUndef() || index.isUndef()) {
+            return;
+        }
+        for (Obj obj : pta.getPointsToSet(store.getArrayAccess().getBase())) {
+            Map<Value, Value> elements = arrayValues.computeIfAbsent(
+                    obj, __ -> Maps.newMap());
+            if (meetInto(elements, index, value)) {
+                arrayLoads.get(obj).forEach(solver::addToWorkList);
+            }
+        }
+    }
+
+    /**
+     * Meets value into the value of key in given map.
+     *
+     * @return true if the value of key changed, otherwise false.
+     */
+    private <K> boolean meetInto(Map<K, Value> values, K key, Value value) {
+        Value oldValue = values.getOrDefault(key, Value.getUndef());
+        Value newValue = cp.meetValue(oldValue, value);
+        if (!newValue.equals(oldValue)) {
+            values.put(key, newValue);
+            return true;
+        }
         return false;
     }
 
+    /**
+     * Transfer function for statement that defines lhs as value.
+     */
+    private static boolean transferDefinition(
+            Var lhs, Value value, CPFact in, CPFact out) {
+        CPFact result = in.copy();
+        result.update(lhs, value);
+        return out.copyFrom(result);
+    }
+
     @Override
     protected CPFact transferNormalEdge(NormalEdge<Stmt> edge, CPFact out) {
-        // TODO - finish me
-        return null;
+        return out;
     }
 
     @Override
     protected CPFact transferCallToReturnEdge(CallToReturnEdge<Stmt> edge, CPFact out) {
-        // TODO - finish me
-        return null;
+        CPFact result = out.copy();
+        Var lhs = ((Invoke) edge.getSource()).getResult();
+        if (lhs != null) {
+            result.remove(lhs);
+        }
+        return result;
     }
 
     @Override
     protected CPFact transferCallEdge(CallEdge<Stmt> edge, CPFact callSiteOut) {
-        // TODO - finish me
-        return null;
+        CPFact result = newInitialFact();
+        InvokeExp invokeExp = ((Invoke) edge.getSource()).getInvokeExp();
+        IR calleeIR = edge.getCallee().getIR();
+        for (int i = 0; i < invokeExp.getArgCount(); ++i) {
+            Var param = calleeIR.getParam(i);
+            if (canHoldInt(param)) {
+                result.update(param, callSiteOut.get(invokeExp.getArg(i)));
+            }
+        }
+        return result;
     }
 
     @Override
     protected CPFact transferReturnEdge(ReturnEdge<Stmt> edge, CPFact returnOut) {
-        // TODO - finish me
-        return null;
+        CPFact result = newInitialFact();
+        Var lhs = ((Invoke) edge.getCallSite()).getResult();
+        if (lhs != null && canHoldInt(lhs)) {
+            Value value = Value.getUndef();
+            for (Var ret : edge.getReturnVars()) {
+                value = cp.meetValue(value, returnOut.get(ret));
+            }
+            result.update(lhs, value);
+        }
+        return result;
     }
 }
@@ -24,6 +24,7 @@ package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
 import pascal.taie.util.collection.SetQueue;
 
 import java.util.Queue;
@@ -59,10 +60,41 @@ class InterSolver<Method, Node, Fact> {
     }
 
     private void initialize() {
-        // TODO - finish me
+        workList = new SetQueue<>();
+        Set<Node> boundaries = icfg.entryMethods()
+                .map(icfg::getEntryOf)
+                .collect(Collectors.toSet());
+        for (Node node : icfg) {
+            result.setInFact(node, analysis.newInitialFact());
+            if (boundaries.contains(node)) {
+                result.setOutFact(node, analysis.newBoundaryFact(node));
+            } else {
+                result.setOutFact(node, analysis.newInitialFact());
+                workList.add(node);
+            }
+        }
     }
 
     private void doSolve() {
-        // TODO - finish me
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            for (ICFGEdge<Node> edge : icfg.getInEdgesOf(node)) {
+                analysis.meetInto(analysis.transferEdge(edge,
+                        result.getOutFact(edge.getSource())), in);
+            }
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                workList.addAll(icfg.getSuccsOf(node));
+            }
+        }
+    }
+
+    /**
+     * Adds a node to the work list, so that it will be processed again.
+     * This is used by analyses whose facts of a node may depend on
+     * the facts of nodes other than its predecessors.
+     */
+    void addToWorkList(Node node) {
+        workList.add(node);
     }
 }
@@ -0,0 +1,489 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link CSManager} which stores the context-sensitive elements in flat
+ * open-addressed tables keyed by (base element, context) pairs, together
+ * with the cached hash codes of the pairs. Compared with
+ * {@link MapBasedCSManager}, it avoids a nested hash map for every base
+ * element, and each lookup probes a single table.
+ * <p>
+ * The elements are partitioned into shards by their base elements, and
+ * each shard has its own tables. The thread-safe variant uses multiple
+ * shards. Looking up an existing element does not lock: the tables
+ * publish their elements through {@link AtomicReferenceArray}s and are
+ * replaced as a whole when they grow. Only adding a new element takes
+ * the lock of its shard, so threads rarely contend, and never on
+ * the lookups that dominate solving.
+ */
+public class IndexedCSManager implements CSManager {
+
+    private final Shard[] shards;
+
+    private final boolean concurrent;
+
+    /**
+     * Creates a manager for single-threaded use.
+     */
+    public IndexedCSManager() {
+        this.shards = new Shard[]{ new Shard(false) };
+        this.concurrent = false;
+    }
+
+    /**
+     * Creates a thread-safe manager.
+     *
+     * @param parallelism the expected number of threads using this manager,
+     *                    which determines the number of shards.
+     */
+    public IndexedCSManager(int parallelism) {
+        int nShards = Integer.highestOneBit(Math.max(parallelism, 1) * 8 - 1) << 1;
+        this.shards = new Shard[nShards];
+        for (int i = 0; i < nShards; ++i) {
+            shards[i] = new Shard(true);
+        }
+        this.concurrent = true;
+    }
+
+    private Shard shardOf(Object base) {
+        return shards.length == 1 ? shards[0] :
+                shards[mix(base.hashCode()) & (shards.length - 1)];
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(Object base, Object context) {
+        return mix(base.hashCode() * 31 + (context == null ? 0 : context.hashCode()));
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        return shardOf(var).getCSVar(context, var);
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        return shardOf(obj).getCSObj(heapContext, obj);
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        return shardOf(callSite).getCSCallSite(context, callSite);
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        return shardOf(method).getCSMethod(context, method);
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return shardOf(field).getStaticField(field);
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        return shardOf(base).getInstanceField(base, field);
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        return shardOf(array).getArrayIndex(array);
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        Set<Var> vars = new LinkedHashSet<>();
+        getCSVars().forEach(csVar -> vars.add(csVar.getVar()));
+        return Collections.unmodifiableSet(vars);
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        Shard shard = shardOf(var);
+        return shard.locked(() -> shard.getCSVarsOf(var));
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return collect(shard -> shard.csVars);
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return collect(shard -> shard.csObjs);
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return collect(shard -> shard.staticFields);
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return collect(shard -> shard.instanceFields);
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return collect(shard -> shard.arrayIndexes);
+    }
+
+    private <E> Collection<E> collect(Function<Shard, List<E>> getter) {
+        if (shards.length == 1 && !concurrent) {
+            return Collections.unmodifiableList(getter.apply(shards[0]));
+        }
+        List<E> result = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                result.addAll(getter.apply(shard));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static <P extends Pointer> P initializePointsToSet(P pointer) {
+        pointer.setPointsToSet(PointsToSetFactory.make());
+        return pointer;
+    }
+
+    /**
+     * Elements of a part of the base elements.
+     */
+    private static class Shard {
+
+        private final boolean concurrent;
+
+        private final ElementTable<CSVar> varTable = new ElementTable<>(
+                (v, var, ctx) -> v.getVar().equals(var) && v.getContext().equals(ctx));
+
+        private final ElementTable<CSObj> objTable = new ElementTable<>(
+                (o, obj, ctx) -> o.getObject().equals(obj) && o.getContext().equals(ctx));
+
+        private final ElementTable<CSCallSite> callSiteTable = new ElementTable<>(
+                (c, callSite, ctx) -> c.getCallSite().equals(callSite) && c.getContext().equals(ctx));
+
+        private final ElementTable<CSMethod> methodTable = new ElementTable<>(
+                (m, method, ctx) -> m.getMethod().equals(method) && m.getContext().equals(ctx));
+
+        private final ElementTable<StaticField> staticFieldTable = new ElementTable<>(
+                (f, field, unused) -> f.getField().equals(field));
+
+        private final ElementTable<InstanceField> instanceFieldTable = new ElementTable<>(
+                (f, base, field) -> f.getBase().equals(base) && f.getField().equals(field));
+
+        private final ElementTable<ArrayIndex> arrayIndexTable = new ElementTable<>(
+                (a, array, unused) -> a.getArray().equals(array));
+
+        private final List<CSVar> csVars = new ArrayList<>();
+
+        /**
+         * Map from a variable to its context-sensitive variables. It is only
+         * used to answer {@link #getCSVarsOf(Var)}, which is rarely called
+         * during solving, thus it is built lazily and incrementally.
+         */
+        private final MultiMap<Var, CSVar> csVarsOf = Maps.newMultiMap();
+
+        /**
+         * Number of context-sensitive variables in {@link #csVarsOf}.
+         */
+        private int nIndexedCSVars = 0;
+
+        private final List<CSObj> csObjs = new ArrayList<>();
+
+        private final List<StaticField> staticFields = new ArrayList<>();
+
+        private final List<InstanceField> instanceFields = new ArrayList<>();
+
+        private final List<ArrayIndex> arrayIndexes = new ArrayList<>();
+
+        private Shard(boolean concurrent) {
+            this.concurrent = concurrent;
+        }
+
+        /**
+         * Runs given action under the lock of this shard if it is used
+         * by multiple threads. The lookups of existing elements need not
+         * the lock; the actions that add elements look the elements up
+         * again under the lock, as other threads may have added them.
+         */
+        private <T> T locked(Supplier<T> action) {
+            if (concurrent) {
+                synchronized (this) {
+                    return action.get();
+                }
+            }
+            return action.get();
+        }
+
+        private CSVar getCSVar(Context context, Var var) {
+            int hash = hash(var, context);
+            CSVar csVar = varTable.get(var, context, hash);
+            return csVar != null ? csVar :
+                    locked(() -> addCSVar(context, var, hash));
+        }
+
+        private CSVar addCSVar(Context context, Var var, int hash) {
+            CSVar csVar = varTable.get(var, context, hash);
+            if (csVar == null) {
+                csVar = initializePointsToSet(new CSVar(var, context));
+                varTable.put(csVar, hash);
+                csVars.add(csVar);
+            }
+            return csVar;
+        }
+
+        private Collection<CSVar> getCSVarsOf(Var var) {
+            for (; nIndexedCSVars < csVars.size(); ++nIndexedCSVars) {
+                CSVar csVar = csVars.get(nIndexedCSVars);
+                csVarsOf.put(csVar.getVar(), csVar);
+            }
+            return List.copyOf(csVarsOf.get(var));
+        }
+
+        private CSObj getCSObj(Context heapContext, Obj obj) {
+            int hash = hash(obj, heapContext);
+            CSObj csObj = objTable.get(obj, heapContext, hash);
+            return csObj != null ? csObj :
+                    locked(() -> addCSObj(heapContext, obj, hash));
+        }
+
+        private CSObj addCSObj(Context heapContext, Obj obj, int hash) {
+            CSObj csObj = objTable.get(obj, heapContext, hash);
+            if (csObj == null) {
+                csObj = new CSObj(obj, heapContext);
+                objTable.put(csObj, hash);
+                csObjs.add(csObj);
+            }
+            return csObj;
+        }
+
+        private CSCallSite getCSCallSite(Context context, Invoke callSite) {
+            int hash = hash(callSite, context);
+            CSCallSite csCallSite = callSiteTable.get(callSite, context, hash);
+            return csCallSite != null ? csCallSite :
+                    locked(() -> addCSCallSite(context, callSite, hash));
+        }
+
+        private CSCallSite addCSCallSite(Context context, Invoke callSite, int hash) {
+            CSCallSite csCallSite = callSiteTable.get(callSite, context, hash);
+            if (csCallSite == null) {
+                csCallSite = new CSCallSite(callSite, context);
+                callSiteTable.put(csCallSite, hash);
+            }
+            return csCallSite;
+        }
+
+        private CSMethod getCSMethod(Context context, JMethod method) {
+            int hash = hash(method, context);
+            CSMethod csMethod = methodTable.get(method, context, hash);
+            return csMethod != null ? csMethod :
+                    locked(() -> addCSMethod(context, method, hash));
+        }
+
+        private CSMethod addCSMethod(Context context, JMethod method, int hash) {
+            CSMethod csMethod = methodTable.get(method, context, hash);
+            if (csMethod == null) {
+                csMethod = new CSMethod(method, context);
+                methodTable.put(csMethod, hash);
+            }
+            return csMethod;
+        }
+
+        private StaticField getStaticField(JField field) {
+            int hash = hash(field, null);
+            StaticField staticField = staticFieldTable.get(field, null, hash);
+            return staticField != null ? staticField :
+                    locked(() -> addStaticField(field, hash));
+        }
+
+        private StaticField addStaticField(JField field, int hash) {
+            StaticField staticField = staticFieldTable.get(field, null, hash);
+            if (staticField == null) {
+                staticField = initializePointsToSet(new StaticField(field));
+                staticFieldTable.put(staticField, hash);
+                staticFields.add(staticField);
+            }
+            return staticField;
+        }
+
+        private InstanceField getInstanceField(CSObj base, JField field) {
+            int hash = hash(base, field);
+            InstanceField instanceField = instanceFieldTable.get(base, field, hash);
+            return instanceField != null ? instanceField :
+                    locked(() -> addInstanceField(base, field, hash));
+        }
+
+        private InstanceField addInstanceField(CSObj base, JField field, int hash) {
+            InstanceField instanceField = instanceFieldTable.get(base, field, hash);
+            if (instanceField == null) {
+                instanceField = initializePointsToSet(new InstanceField(base, field));
+                instanceFieldTable.put(instanceField, hash);
+                instanceFields.add(instanceField);
+            }
+            return instanceField;
+        }
+
+        private ArrayIndex getArrayIndex(CSObj array) {
+            int hash = hash(array, null);
+            ArrayIndex arrayIndex = arrayIndexTable.get(array, null, hash);
+            return arrayIndex != null ? arrayIndex :
+                    locked(() -> addArrayIndex(array, hash));
+        }
+
+        private ArrayIndex addArrayIndex(CSObj array, int hash) {
+            ArrayIndex arrayIndex = arrayIndexTable.get(array, null, hash);
+            if (arrayIndex == null) {
+                arrayIndex = initializePointsToSet(new ArrayIndex(array));
+                arrayIndexTable.put(arrayIndex, hash);
+                arrayIndexes.add(arrayIndex);
+            }
+            return arrayIndex;
+        }
+    }
+
+    /**
+     * Tests whether an element is identified by the given two keys.
+     */
+    @FunctionalInterface
+    private interface Matcher<E> {
+
+        boolean matches(E element, Object key1, Object key2);
+    }
+
+    /**
+     * Open-addressed hash table (with linear probing) of elements, which
+     * are identified by two keys. The hash codes of the keys are kept
+     * in a primitive array, so that probing rarely calls equals().
+     * <p>
+     * {@link #get} may run concurrently with {@link #put}, while the puts
+     * are serialized by the caller. A slot's hash code is written before
+     * its element, and the element is published by a volatile write,
+     * so a reader that sees an element also sees its hash code and its
+     * initialized fields. A resize fills new arrays and then publishes
+     * them at once, so readers always probe a consistent table. A reader
+     * may miss an element being added, in which case the caller looks it
+     * up again under the lock.
+     */
+    private static class ElementTable<E> {
+
+        private final Matcher<E> matcher;
+
+        private volatile Slots slots = new Slots(32);
+
+        private int size = 0;
+
+        private ElementTable(Matcher<E> matcher) {
+            this.matcher = matcher;
+        }
+
+        /**
+         * @return the element identified by the keys, or null if absent.
+         */
+        @SuppressWarnings("unchecked")
+        private E get(Object key1, Object key2, int hash) {
+            Slots s = slots;
+            int mask = s.hashes.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                Object element = s.elements.get(i);
+                if (element == null) {
+                    return null;
+                }
+                if (s.hashes[i] == hash && matcher.matches((E) element, key1, key2)) {
+                    return (E) element;
+                }
+            }
+        }
+
+        /**
+         * Puts an element which is absent from this table.
+         */
+        private void put(E element, int hash) {
+            if (++size * 2 > slots.hashes.length) {
+                resize();
+            }
+            slots.insert(element, hash);
+        }
+
+        private void resize() {
+            Slots oldSlots = slots;
+            Slots newSlots = new Slots(oldSlots.hashes.length * 2);
+            for (int i = 0; i < oldSlots.hashes.length; ++i) {
+                Object element = oldSlots.elements.get(i);
+                if (element != null) {
+                    newSlots.insert(element, oldSlots.hashes[i]);
+                }
+            }
+            slots = newSlots;
+        }
+    }
+
+    /**
+     * Elements and their hash codes of an {@link ElementTable}.
+     */
+    private static class Slots {
+
+        private final AtomicReferenceArray<Object> elements;
+
+        private final int[] hashes;
+
+        private Slots(int capacity) {
+            elements = new AtomicReferenceArray<>(capacity);
+            hashes = new int[capacity];
+        }
+
+        private void insert(Object element, int hash) {
+            int mask = hashes.length - 1;
+            int i = hash & mask;
+            while (elements.get(i) != null) {
+                i = (i + 1) & mask;
+            }
+            hashes[i] = hash;
+            elements.set(i, element);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+
+/**
+ * Static utility methods for building the contexts of 2-limited selectors.
+ */
+final class Contexts {
+
+    private Contexts() {
+    }
+
+    /**
+     * @return a context consisting of the last element of given context
+     * (if any) followed by given element.
+     */
+    static Context extend(Context context, Object element) {
+        int length = context.getLength();
+        return length == 0 ? ListContext.make(element)
+                : ListContext.make(context.getElementAt(length - 1), element);
+    }
+
+    /**
+     * @return a context consisting of the last element of given context,
+     * i.e., given context truncated to length 1.
+     */
+    static Context truncate(Context context) {
+        int length = context.getLength();
+        return length == 0 ? ListContext.make()
+                : ListContext.make(context.getElementAt(length - 1));
+    }
+}
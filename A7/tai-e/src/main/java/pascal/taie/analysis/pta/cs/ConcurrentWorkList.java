@@ -0,0 +1,182 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Work list shared by the worker threads of the parallel solver.
+ * <p>
+ * Entries are partitioned by their pointers, and each worker prefers
+ * its own partition, so that entries of the same pointer are mostly
+ * processed by the same worker, which reduces the contention on the
+ * pointer's points-to set. Idle workers steal entries from the other
+ * partitions, and wait (without spinning) when all partitions are empty
+ * but some entries are still being processed.
+ */
+class ConcurrentWorkList extends WorkList {
+
+    private final List<Queue<Entry>> partitions;
+
+    /**
+     * Number of entries that are added but not finished yet,
+     * including the entries being processed.
+     */
+    private final AtomicLong pending = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signaled when an entry is added or all entries are processed.
+     */
+    private final Condition changed = lock.newCondition();
+
+    /**
+     * Number of workers waiting on {@link #changed}, so that adding and
+     * finishing entries only take the lock when a worker is waiting.
+     */
+    private final AtomicInteger nWaiting = new AtomicInteger();
+
+    ConcurrentWorkList(int nPartitions) {
+        List<Queue<Entry>> queues = new ArrayList<>(nPartitions);
+        for (int i = 0; i < nPartitions; ++i) {
+            queues.add(new ConcurrentLinkedQueue<>());
+        }
+        partitions = List.copyOf(queues);
+    }
+
+    @Override
+    void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        pending.incrementAndGet();
+        int i = Math.floorMod(pointer.hashCode(), partitions.size());
+        partitions.get(i).add(new Entry(pointer, pointsToSet));
+        if (nWaiting.get() > 0) {
+            signal(false);
+        }
+    }
+
+    @Override
+    Entry pollEntry() {
+        return pollEntry(0);
+    }
+
+    /**
+     * Retrieves and removes an entry, starting from given partition.
+     * If all partitions are empty but some entries are still being
+     * processed, waits until an entry is added or all entries are
+     * processed. The caller must call {@link #finishEntry()} after
+     * the returned entry has been processed.
+     *
+     * @return the entry, or null if all entries have been processed.
+     */
+    Entry takeEntry(int partition) throws InterruptedException {
+        while (true) {
+            Entry entry = pollEntry(partition);
+            if (entry != null) {
+                return entry;
+            }
+            if (isEmpty()) {
+                return null;
+            }
+            lock.lock();
+            nWaiting.incrementAndGet();
+            try {
+                // check again after announcing the wait, so that the
+                // signal of a concurrent add or finish is not missed
+                while (!hasEntries() && !isEmpty()) {
+                    changed.await();
+                }
+            } finally {
+                nWaiting.decrementAndGet();
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Retrieves and removes an entry, starting from given partition,
+     * or returns null if all partitions are empty at the moment.
+     */
+    private Entry pollEntry(int partition) {
+        int nPartitions = partitions.size();
+        for (int i = 0; i < nPartitions; ++i) {
+            Entry entry = partitions.get((partition + i) % nPartitions).poll();
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasEntries() {
+        for (Queue<Entry> partition : partitions) {
+            if (!partition.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks an entry returned by {@link #takeEntry(int)} as processed.
+     */
+    void finishEntry() {
+        if (pending.decrementAndGet() == 0 && nWaiting.get() > 0) {
+            // wake all waiting workers to let them exit
+            signal(true);
+        }
+    }
+
+    private void signal(boolean all) {
+        lock.lock();
+        try {
+            if (all) {
+                changed.signalAll();
+            } else {
+                changed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if all added entries have been processed. As processing
+     * an entry may add new entries, an empty queue alone does not mean
+     * that the work list is finished.
+     */
+    @Override
+    boolean isEmpty() {
+        return pending.get() == 0;
+    }
+}
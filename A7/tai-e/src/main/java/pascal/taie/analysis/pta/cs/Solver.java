@@ -38,6 +38,7 @@ import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.IndexedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.InstanceField;
 import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
@@ -48,8 +49,11 @@ import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.FieldRef;
 import pascal.taie.ir.stmt.Copy;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.LoadArray;
@@ -61,6 +65,19 @@ import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 class Solver {
 
@@ -82,23 +99,69 @@ class Solver {
 
     private PointerAnalysisResult result;
 
+    /**
+     * Whether to detect cycles of PFG during propagation and merge
+     * the pointers on each cycle.
+     */
+    private final boolean cycleElimination;
+
+    /**
+     * PFG edges that have triggered cycle detection. Each edge triggers
+     * at most one detection, as in lazy cycle detection.
+     */
+    private Set<Pair<Pointer, Pointer>> checkedEdges;
+
+    private int nMergedPointers;
+
+    /**
+     * Number of worker threads. If it is larger than 1, the work list
+     * is processed by multiple threads in parallel.
+     */
+    private final int threads;
+
+    /**
+     * Lock for accessing the program representation in parallel mode,
+     * i.e., building IR, resolving fields and methods, and getting
+     * heap objects, as they are not thread-safe.
+     */
+    private final Object worldLock = new Object();
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.threads = options.get("threads") instanceof Integer n ?
+                Math.max(n, 1) : 1;
+        boolean cycleElimination = options.getBooleanOrDefault(
+                "cycle-elimination", false);
+        if (cycleElimination && threads > 1) {
+            logger.warn("cycle-elimination is not supported by " +
+                    "the parallel solver, ignored");
+            cycleElimination = false;
+        }
+        this.cycleElimination = cycleElimination;
     }
 
     void solve() {
         initialize();
-        analyze();
+        if (threads > 1) {
+            analyzeInParallel();
+        } else {
+            analyze();
+        }
+        if (cycleElimination) {
+            logger.info("Merged {} pointers on PFG cycles", nMergedPointers);
+        }
     }
 
     private void initialize() {
-        csManager = new MapBasedCSManager();
+        boolean parallel = threads > 1;
+        csManager = makeCSManager(parallel);
         callGraph = new CSCallGraph(csManager);
-        pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        pointerFlowGraph = new PointerFlowGraph(parallel);
+        workList = parallel ? new ConcurrentWorkList(threads) : new WorkList();
+        checkedEdges = Sets.newSet();
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -107,11 +170,36 @@ class Solver {
         addReachable(csMethod);
     }
 
+    /**
+     * Creates the CS manager specified by option "cs-manager".
+     * The thread-safe manager is always {@link IndexedCSManager},
+     * so both kinds use it when solving with multiple threads.
+     *
+     * @param parallel whether the CS manager is used by multiple threads.
+     */
+    private CSManager makeCSManager(boolean parallel) {
+        String kind = options.getString("cs-manager");
+        if (kind == null || kind.equals("map")) {
+            return parallel ? new IndexedCSManager(threads) : new MapBasedCSManager();
+        } else if (kind.equals("indexed")) {
+            return parallel ? new IndexedCSManager(threads) : new IndexedCSManager();
+        } else {
+            throw new ConfigException("Unknown cs-manager: " + kind);
+        }
+    }
+
     /**
      * Processes new reachable context-sensitive method.
      */
     private void addReachable(CSMethod csMethod) {
-        // TODO - finish me
+        boolean added;
+        synchronized (callGraph) {
+            added = callGraph.addReachableMethod(csMethod);
+        }
+        if (added) {
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            getIR(csMethod.getMethod()).forEach(stmt -> stmt.accept(stmtProcessor));
+        }
     }
 
     /**
@@ -128,22 +216,228 @@ class Solver {
             this.context = csMethod.getContext();
         }
 
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+        @Override
+        public Void visit(New stmt) {
+            Obj obj = getObj(stmt);
+            Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
+            workList.addEntry(csManager.getCSVar(context, stmt.getLValue()),
+                    PointsToSetFactory.make(csManager.getCSObj(heapContext, obj)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                    csManager.getCSVar(context, stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                JField field = resolveField(stmt.getFieldRef());
+                addPFGEdge(csManager.getStaticField(field),
+                        csManager.getCSVar(context, stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                JField field = resolveField(stmt.getFieldRef());
+                addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                        csManager.getStaticField(field));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                Context calleeContext = contextSelector.selectContext(csCallSite, callee);
+                processCallEdge(new Edge<>(CallKind.STATIC, csCallSite,
+                        csManager.getCSMethod(calleeContext, callee)));
+            }
+            return null;
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
+        if (threads > 1) {
+            // adds the edge and takes a snapshot of pt(source) atomically,
+            // so that objects added to pt(source) concurrently are either
+            // in the snapshot or propagated along the new edge by propagate()
+            PointsToSet snapshot = null;
+            synchronized (source) {
+                if (pointerFlowGraph.addEdge(source, target) &&
+                        !source.getPointsToSet().isEmpty()) {
+                    snapshot = PointsToSetFactory.make();
+                    snapshot.addAll(source.getPointsToSet());
+                }
+            }
+            if (snapshot != null) {
+                workList.addEntry(target, snapshot);
+            }
+            return;
+        }
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                workList.addEntry(target, pts);
+            }
+        }
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
      */
     private void analyze() {
-        // TODO - finish me
+        while (!workList.isEmpty()) {
+            processEntry(workList.pollEntry());
+        }
+    }
+
+    /**
+     * Processes work-list entries with multiple worker threads until
+     * all entries are processed.
+     */
+    private void analyzeInParallel() {
+        ConcurrentWorkList concurrentWorkList = (ConcurrentWorkList) workList;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; ++i) {
+            int partition = i;
+            workers.add(executor.submit(() -> {
+                WorkList.Entry entry;
+                while ((entry = concurrentWorkList.takeEntry(partition)) != null) {
+                    try {
+                        processEntry(entry);
+                    } finally {
+                        concurrentWorkList.finishEntry();
+                    }
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Parallel pointer analysis is interrupted", e);
+        } catch (ExecutionException e) {
+            throw new AnalysisException("Parallel pointer analysis failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("Solved with {} threads", threads);
+    }
+
+    private void processEntry(WorkList.Entry entry) {
+        Pointer pointer = entry.pointer();
+        PointsToSet delta = propagate(pointer, entry.pointsToSet());
+        if (!delta.isEmpty()) {
+            for (Pointer p : pointerFlowGraph.getMergedPointers(pointer)) {
+                processNewObjects(p, delta);
+            }
+            if (cycleElimination) {
+                detectCycle(pointer);
+            }
+        }
+    }
+
+    /**
+     * Processes the instance field and array accesses and the instance
+     * calls on the objects newly pointed to by given pointer.
+     */
+    private void processNewObjects(Pointer pointer, PointsToSet delta) {
+        if (pointer instanceof CSVar csVar) {
+            Var var = csVar.getVar();
+            Context context = csVar.getContext();
+            for (CSObj obj : delta) {
+                for (StoreField store : var.getStoreFields()) {
+                    addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                            csManager.getInstanceField(obj, resolveField(store.getFieldRef())));
+                }
+                for (LoadField load : var.getLoadFields()) {
+                    addPFGEdge(csManager.getInstanceField(obj, resolveField(load.getFieldRef())),
+                            csManager.getCSVar(context, load.getLValue()));
+                }
+                for (StoreArray store : var.getStoreArrays()) {
+                    addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                            csManager.getArrayIndex(obj));
+                }
+                for (LoadArray load : var.getLoadArrays()) {
+                    addPFGEdge(csManager.getArrayIndex(obj),
+                            csManager.getCSVar(context, load.getLValue()));
+                }
+                processCall(csVar, obj);
+            }
+        }
+    }
+
+    /**
+     * Lazy cycle detection: an edge (pointer -> succ) whose two ends
+     * already have the same points-to set is likely on a cycle, so
+     * we search for the cycle and merge the pointers on it.
+     */
+    private void detectCycle(Pointer pointer) {
+        PointsToSet pts = pointer.getPointsToSet();
+        for (Pointer succ : pointerFlowGraph.getMergedSuccsOf(pointer)) {
+            PointsToSet succPts = succ.getPointsToSet();
+            if (succPts.size() == pts.size() &&
+                    checkedEdges.add(new Pair<>(pointer, succ)) &&
+                    pts.objects().allMatch(succPts::contains)) {
+                Set<Pointer> cycle = pointerFlowGraph.findCycle(pointer, succ);
+                if (!cycle.isEmpty()) {
+                    mergeCycle(cycle);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the pointers on a cycle, so that they share one points-to
+     * set afterwards. The objects that are new to a pointer after the
+     * merge are processed and propagated as usual.
+     */
+    private void mergeCycle(Set<Pointer> cycle) {
+        Pointer rep = pointerFlowGraph.merge(cycle);
+        Set<Pointer> members = pointerFlowGraph.getMergedPointers(rep);
+        PointsToSet merged = PointsToSetFactory.make();
+        Map<PointsToSet, PointsToSet> diffs = new IdentityHashMap<>();
+        for (Pointer member : members) {
+            if (!diffs.containsKey(member.getPointsToSet())) {
+                diffs.put(member.getPointsToSet(), null);
+                merged.addAll(member.getPointsToSet());
+            }
+        }
+        for (PointsToSet pts : diffs.keySet()) {
+            PointsToSet copy = PointsToSetFactory.make();
+            copy.addAll(pts);
+            diffs.put(pts, copy.addAllDiff(merged));
+        }
+        for (Pointer member : members) {
+            PointsToSet diff = diffs.get(member.getPointsToSet());
+            member.setPointsToSet(merged);
+            if (!diff.isEmpty()) {
+                processNewObjects(member, diff);
+                for (Pointer succ : pointerFlowGraph.getSuccsOf(member)) {
+                    if (pointerFlowGraph.getRep(succ) != rep) {
+                        workList.addEntry(succ, diff);
+                    }
+                }
+            }
+        }
+        nMergedPointers += cycle.size() - 1;
     }
 
     /**
@@ -151,8 +445,26 @@ class Solver {
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-        return null;
+        if (threads > 1) {
+            PointsToSet diff;
+            List<Pointer> succs;
+            synchronized (pointer) {
+                diff = pointer.getPointsToSet().addAllDiff(pointsToSet);
+                succs = diff.isEmpty() ? List.of()
+                        : List.copyOf(pointerFlowGraph.getSuccsOf(pointer));
+            }
+            for (Pointer succ : succs) {
+                workList.addEntry(succ, diff);
+            }
+            return diff;
+        }
+        PointsToSet diff = pointer.getPointsToSet().addAllDiff(pointsToSet);
+        if (!diff.isEmpty()) {
+            for (Pointer succ : pointerFlowGraph.getMergedSuccsOf(pointer)) {
+                workList.addEntry(succ, diff);
+            }
+        }
+        return diff;
     }
 
     /**
@@ -162,7 +474,53 @@ class Solver {
      * @param recvObj set of new discovered objects pointed by the variable.
      */
     private void processCall(CSVar recv, CSObj recvObj) {
-        // TODO - finish me
+        Context context = recv.getContext();
+        for (Invoke callSite : recv.getVar().getInvokes()) {
+            JMethod callee = resolveCallee(recvObj, callSite);
+            if (callee == null) {
+                continue;
+            }
+            CSCallSite csCallSite = csManager.getCSCallSite(context, callSite);
+            Context calleeContext = contextSelector.selectContext(
+                    csCallSite, recvObj, callee);
+            CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+            workList.addEntry(csManager.getCSVar(calleeContext, getIR(callee).getThis()),
+                    PointsToSetFactory.make(recvObj));
+            processCallEdge(new Edge<>(CallGraphs.getCallKind(callSite),
+                    csCallSite, csCallee));
+        }
+    }
+
+    /**
+     * Adds a call edge to the call graph. If the edge is new, makes the
+     * callee reachable, and connects the arguments and return value
+     * of the call site with the parameters and return variables
+     * of the callee.
+     */
+    private void processCallEdge(Edge<CSCallSite, CSMethod> edge) {
+        synchronized (callGraph) {
+            if (!callGraph.addEdge(edge)) {
+                return;
+            }
+        }
+        CSMethod csCallee = edge.getCallee();
+        addReachable(csCallee);
+        Context callerContext = edge.getCallSite().getContext();
+        Context calleeContext = csCallee.getContext();
+        Invoke callSite = edge.getCallSite().getCallSite();
+        IR calleeIR = getIR(csCallee.getMethod());
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        for (int i = 0; i < invokeExp.getArgCount(); ++i) {
+            addPFGEdge(csManager.getCSVar(callerContext, invokeExp.getArg(i)),
+                    csManager.getCSVar(calleeContext, calleeIR.getParam(i)));
+        }
+        Var result = callSite.getResult();
+        if (result != null) {
+            CSVar csResult = csManager.getCSVar(callerContext, result);
+            for (Var ret : calleeIR.getReturnVars()) {
+                addPFGEdge(csManager.getCSVar(calleeContext, ret), csResult);
+            }
+        }
     }
 
     /**
@@ -175,7 +533,39 @@ class Solver {
      */
     private JMethod resolveCallee(CSObj recv, Invoke callSite) {
         Type type = recv != null ? recv.getObject().getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+        if (threads == 1) {
+            return CallGraphs.resolveCallee(type, callSite);
+        }
+        synchronized (worldLock) {
+            return CallGraphs.resolveCallee(type, callSite);
+        }
+    }
+
+    private IR getIR(JMethod method) {
+        if (threads == 1) {
+            return method.getIR();
+        }
+        synchronized (worldLock) {
+            return method.getIR();
+        }
+    }
+
+    private JField resolveField(FieldRef fieldRef) {
+        if (threads == 1) {
+            return fieldRef.resolve();
+        }
+        synchronized (worldLock) {
+            return fieldRef.resolve();
+        }
+    }
+
+    private Obj getObj(New allocSite) {
+        if (threads == 1) {
+            return heapModel.getObj(allocSite);
+        }
+        synchronized (worldLock) {
+            return heapModel.getObj(allocSite);
+        }
     }
 
     PointerAnalysisResult getResult() {
@@ -0,0 +1,76 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.Indexer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numbers context-sensitive objects densely in the order they are first
+ * added to a points-to set. The indexer is global to an analysis run,
+ * so that the bits of all bitmap points-to sets are comparable.
+ * <p>
+ * The indexer is thread-safe, as it is shared by the parallel solver.
+ * Lookups of indexed objects are lock-free; only numbering a new object
+ * takes the lock.
+ */
+class CSObjIndexer implements Indexer<CSObj> {
+
+    private final Map<CSObj, Integer> indexes = new ConcurrentHashMap<>();
+
+    private volatile CSObj[] objs = new CSObj[1024];
+
+    private int size = 0;
+
+    @Override
+    public int getIndex(CSObj obj) {
+        Integer index = indexes.get(obj);
+        return index != null ? index : addObject(obj);
+    }
+
+    private synchronized int addObject(CSObj obj) {
+        Integer index = indexes.get(obj);
+        if (index != null) {
+            return index;
+        }
+        CSObj[] array = objs;
+        if (size == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[size] = obj;
+        // publish the array before the index, so that any thread
+        // obtaining the index can also find the object
+        objs = array;
+        indexes.put(obj, size);
+        return size++;
+    }
+
+    @Override
+    public CSObj getObject(int index) {
+        return objs[index];
+    }
+}
@@ -49,6 +49,22 @@ public interface PointsToSet extends Iterable<CSObj> {
      */
     boolean addAll(PointsToSet pts);
 
+    /**
+     * Adds all objects in given pts to this set.
+     *
+     * @return a new set containing the objects that are added to this set
+     * by this call, i.e., the objects of pts that were absent in this set.
+     */
+    default PointsToSet addAllDiff(PointsToSet pts) {
+        PointsToSet diff = PointsToSetFactory.make();
+        for (CSObj obj : pts) {
+            if (addObject(obj)) {
+                diff.addObject(obj);
+            }
+        }
+        return diff;
+    }
+
     /**
      * @return true if this set contains given object, otherwise false.
      */
@@ -23,6 +23,8 @@
 package pascal.taie.analysis.pta.pts;
 
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.Indexer;
 import pascal.taie.util.collection.Sets;
 
 import java.util.Set;
@@ -35,8 +37,34 @@ public class PointsToSetFactory {
 
     private static final Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
 
+    /**
+     * Indexer shared by all bitmap points-to sets, or null if
+     * hybrid points-to sets are used.
+     */
+    private static Indexer<CSObj> objIndexer;
+
+    /**
+     * Sets the kind of points-to sets made by this factory.
+     * This should be called before pointer analysis starts, and
+     * the object indexes of the previous analysis are discarded.
+     *
+     * @param kind "hybrid" (default) for sets backed by hybrid hash sets,
+     *             or "bitmap" for sparse bitmaps of densely numbered objects.
+     */
+    public static void setKind(String kind) {
+        if (kind == null || kind.equals("hybrid")) {
+            objIndexer = null;
+        } else if (kind.equals("bitmap")) {
+            objIndexer = new CSObjIndexer();
+        } else {
+            throw new ConfigException("Unknown points-to set kind: " + kind);
+        }
+    }
+
     public static PointsToSet make() {
-        return new DelegatePointsToSet(setFactory.get());
+        return objIndexer == null
+                ? new DelegatePointsToSet(setFactory.get())
+                : new BitmapPointsToSet(objIndexer);
     }
 
     /**
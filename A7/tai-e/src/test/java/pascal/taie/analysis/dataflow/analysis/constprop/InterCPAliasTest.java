@@ -83,4 +83,35 @@ public class InterCPAliasTest {
     public void testStaticFieldMultiStores() {
         test("StaticFieldMultiStores");
     }
+
+    @Test
+    public void testBitmapPointsToSet() {
+        Tests.test("ObjSens", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:true;pta:cspta",
+                "-a", "cspta=cs:2-obj;pts:bitmap", "-a", "cg=algorithm:cspta");
+    }
+
+    @Test
+    public void testCycleElimination() {
+        Tests.test("Interprocedural2", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:true;pta:cspta",
+                "-a", "cspta=cs:2-obj;cycle-elimination:true", "-a", "cg=algorithm:cspta");
+    }
+
+    @Test
+    public void testParallelSolver() {
+        Tests.test("MultiStores", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:true;pta:cspta",
+                "-a", "cspta=cs:2-obj;threads:4", "-a", "cg=algorithm:cspta");
+    }
+
+    @Test
+    public void testIndexedCSManager() {
+        Tests.test("ObjSens", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:true;pta:cspta",
+                "-a", "cspta=cs:2-obj;cs-manager:indexed", "-a", "cg=algorithm:cspta");
+        Tests.test("MultiStores", CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:true;pta:cspta",
+                "-a", "cspta=cs:2-obj;cs-manager:indexed;threads:4", "-a", "cg=algorithm:cspta");
+    }
 }
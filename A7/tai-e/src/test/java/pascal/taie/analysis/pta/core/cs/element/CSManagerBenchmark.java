@@ -0,0 +1,192 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Compares {@link MapBasedCSManager} and {@link IndexedCSManager} on
+ * synthetic variables and objects under 2-object-sensitive contexts.
+ * For each manager, it reports the time to create the context-sensitive
+ * variables and objects, the retained heap after creation, and the
+ * throughput of looking them up again with fresh (equal but not
+ * identical) contexts, as the context selectors produce.
+ * The thread-safe {@link IndexedCSManager} is also measured with
+ * {@link #THREADS} threads, which create the same elements starting
+ * from different positions, and then look them up concurrently.
+ * <p>
+ * This is not a unit test; run {@link #main(String[])} manually,
+ * preferably with a fixed heap size, e.g., -Xms4g -Xmx4g.
+ */
+public class CSManagerBenchmark {
+
+    private static final int VARS = 200_000;
+
+    private static final int OBJS = 20_000;
+
+    private static final int CONTEXTS_PER_ELEMENT = 4;
+
+    private static final int LOOKUPS = 5_000_000;
+
+    private static final int REPEATS = 3;
+
+    private static final int THREADS = 4;
+
+    public static void main(String[] args) {
+        Var[] vars = new Var[VARS];
+        for (int i = 0; i < VARS; ++i) {
+            vars[i] = new Var(null, "v" + i, null, i);
+        }
+        Obj[] objs = new Obj[OBJS];
+        for (int i = 0; i < OBJS; ++i) {
+            objs[i] = new BenchObj(i);
+        }
+        System.out.printf("%-10s %12s %12s %14s%n",
+                "manager", "create ms", "heap MB", "lookups/us");
+        for (int r = 0; r < REPEATS; ++r) {
+            run("map", MapBasedCSManager::new, 1, vars, objs);
+            run("indexed", IndexedCSManager::new, 1, vars, objs);
+            run("indexed-" + THREADS + "t", () -> new IndexedCSManager(THREADS),
+                    THREADS, vars, objs);
+        }
+    }
+
+    private static void run(String name, Supplier<CSManager> factory,
+                            int threads, Var[] vars, Obj[] objs) {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        CSManager csManager = factory.get();
+        runThreads(threads, t -> {
+            for (int n = 0; n < VARS; ++n) {
+                int i = (n + t * VARS / threads) % VARS;
+                for (int c = 0; c < CONTEXTS_PER_ELEMENT; ++c) {
+                    csManager.getCSVar(context(objs, i, c), vars[i]);
+                }
+            }
+            for (int n = 0; n < OBJS; ++n) {
+                int i = (n + t * OBJS / threads) % OBJS;
+                for (int c = 0; c < CONTEXTS_PER_ELEMENT; ++c) {
+                    csManager.getCSObj(context(objs, i, c), objs[i]);
+                }
+            }
+        });
+        double createMs = (System.nanoTime() - start) / 1e6;
+        double heapMB = (usedHeap() - heapBefore) / (1024.0 * 1024.0);
+
+        int[] checksums = new int[threads];
+        start = System.nanoTime();
+        runThreads(threads, t -> {
+            Random random = new Random(t);
+            int checksum = 0;
+            for (int n = 0; n < LOOKUPS / threads; ++n) {
+                int i = random.nextInt(VARS);
+                int c = random.nextInt(CONTEXTS_PER_ELEMENT);
+                checksum += csManager.getCSVar(context(objs, i, c), vars[i])
+                        .getVar().getIndex();
+            }
+            checksums[t] = checksum;
+        });
+        double lookupsPerUs = LOOKUPS / ((System.nanoTime() - start) / 1e3);
+        if (checksums[0] == 42) { // keeps the lookups from being optimized away
+            System.out.print("");
+        }
+        System.out.printf("%-10s %12.1f %12.1f %14.2f%n",
+                name, createMs, heapMB, lookupsPerUs);
+        if (csManager.getCSVars().size() != VARS * CONTEXTS_PER_ELEMENT) {
+            throw new AssertionError(name + " created duplicate elements");
+        }
+    }
+
+    /**
+     * Runs given task on the given number of threads, with the index of
+     * each thread, and waits for them to finish.
+     */
+    private static void runThreads(int threads, IntConsumer task) {
+        if (threads == 1) {
+            task.accept(0);
+            return;
+        }
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; ++t) {
+            int index = t;
+            workers[t] = new Thread(() -> task.accept(index));
+            workers[t].start();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return a fresh 2-object context for the c-th context of i-th element.
+     */
+    private static Context context(Obj[] objs, int i, int c) {
+        return ListContext.make(objs[(i + c) % objs.length],
+                objs[(i * 31 + c * 7) % objs.length]);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private record BenchObj(int id) implements Obj {
+
+        @Override
+        public Type getType() {
+            return null;
+        }
+
+        @Override
+        public Object getAllocation() {
+            return id;
+        }
+
+        @Override
+        public Optional<JMethod> getContainerMethod() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Type getContainerType() {
+            return null;
+        }
+    }
+}